@@ -0,0 +1,104 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 所有绘制方式在参考Canvas上抠出的像素必须一致,抗锯齿边缘除外
+ */
+@RunWith(AndroidJUnit4.class)
+public class GuideMaskRenderModeTest {
+    private static final int SIZE = 400;
+    private static final int BACKGROUND = Color.WHITE;
+    private static final int MASK_COLOR = 0x80000000;
+
+    private Context context;
+    private FrameLayout rootView;
+    private View targetView;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getTargetContext();
+        rootView = new FrameLayout(context);
+        targetView = new View(context);
+        rootView.addView(targetView);
+        rootView.layout(0, 0, SIZE, SIZE);
+        targetView.layout(100, 120, 260, 220);
+    }
+
+    @Test
+    public void allRenderModesProduceSameCutout() {
+        GuideMaskView.RenderMode[] modes = {
+                GuideMaskView.RenderMode.HARDWARE_LAYER,
+                GuideMaskView.RenderMode.CLIP_PATH,
+                GuideMaskView.RenderMode.AUTO
+        };
+        for (GuideMaskView.TargetShape shape : GuideMaskView.TargetShape.values()) {
+            int[] reference = render(GuideMaskView.RenderMode.BITMAP, shape);
+            //目标中心没有被遮盖,四角被遮盖
+            assertEquals(BACKGROUND, reference[170 * SIZE + 180]);
+            assertTrue(reference[0] != BACKGROUND);
+            for (GuideMaskView.RenderMode mode : modes) {
+                assertSameInterior(mode + "/" + shape, reference, render(mode, shape));
+            }
+        }
+    }
+
+    private int[] render(GuideMaskView.RenderMode mode, GuideMaskView.TargetShape shape) {
+        GuideMaskView maskView = new GuideMaskView.Builder(context, rootView, targetView)
+                .setMaskColor(MASK_COLOR)
+                .setTargetShape(shape)
+                .setTargetPadding(8)
+                .setTargetRadius(20)
+                .setRenderMode(mode)
+                .build();
+        maskView.reset();
+
+        Bitmap bitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(BACKGROUND);
+        maskView.onDraw(new Canvas(bitmap));
+        int[] pixels = new int[SIZE * SIZE];
+        bitmap.getPixels(pixels, 0, SIZE, 0, 0, SIZE, SIZE);
+        bitmap.recycle();
+        return pixels;
+    }
+
+    /**
+     * 参考图中周围3x3像素一致(非边缘)的像素必须完全相同
+     */
+    private static void assertSameInterior(String message, int[] reference, int[] actual) {
+        for (int y = 1; y < SIZE - 1; y++) {
+            for (int x = 1; x < SIZE - 1; x++) {
+                int expected = reference[y * SIZE + x];
+                if (isUniform(reference, x, y, expected) && actual[y * SIZE + x] != expected) {
+                    throw new AssertionError(message + " differs at (" + x + "," + y + "): expected "
+                            + Integer.toHexString(expected) + " but was " + Integer.toHexString(actual[y * SIZE + x]));
+                }
+            }
+        }
+    }
+
+    private static boolean isUniform(int[] pixels, int x, int y, int color) {
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if (pixels[(y + dy) * SIZE + x + dx] != color) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
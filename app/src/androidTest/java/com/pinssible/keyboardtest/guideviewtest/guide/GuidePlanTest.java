@@ -0,0 +1,56 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+
+import com.pinssible.keyboardtest.guideviewtest.R;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * res/xml/guide_main.xml的解析以及缓存
+ */
+@RunWith(AndroidJUnit4.class)
+public class GuidePlanTest {
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getTargetContext();
+        GuidePlan.clearCache();
+    }
+
+    @Test
+    public void parsesDefinition() {
+        GuidePlan plan = GuidePlan.load(context, R.xml.guide_main);
+        assertEquals(0xFFFF0000, plan.getMaskColor());
+        assertEquals(1, plan.getSteps().size());
+        GuidePlan.Step step = plan.getSteps().get(0);
+        assertEquals(R.id.test_lin, step.getTargets().get(0).getViewId());
+        assertEquals(GuideMaskView.TargetShape.Oval, step.getTargets().get(0).shape);
+        assertEquals(300, step.getTargets().get(0).ovalXRadius.toPixels(2), 0);
+        assertEquals(R.layout.layout_attached, step.getComponents().get(0).getLayoutId());
+        assertEquals(150, step.getComponents().get(0).yOffset.toPixels(2), 0);
+    }
+
+    @Test
+    public void loadIsCachedPerResource() {
+        assertSame(GuidePlan.load(context, R.xml.guide_main), GuidePlan.load(context, R.xml.guide_main));
+    }
+
+    @Test
+    public void inflateBuildsSequenceOnRoot() {
+        ViewGroup rootView = (ViewGroup) LayoutInflater.from(context).inflate(R.layout.activity_main, null);
+        GuideSequence sequence = GuidePlan.load(context, R.xml.guide_main).inflate(rootView);
+        assertEquals(1, sequence.getStepCount());
+        assertSame(rootView, sequence.getMaskView().getMaskRootView());
+    }
+}
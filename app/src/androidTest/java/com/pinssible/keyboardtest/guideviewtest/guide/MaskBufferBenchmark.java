@@ -0,0 +1,88 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 不同蒙层Bitmap格式的内存以及绘制耗时,结果输出到logcat
+ */
+@RunWith(AndroidJUnit4.class)
+public class MaskBufferBenchmark {
+    private static final String TAG = "MaskBufferBenchmark";
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    private Context context;
+    private FrameLayout rootView;
+    private View targetView;
+    private Canvas canvas;
+
+    @Before
+    public void setUp() {
+        MaskBitmapPool.clear();
+        context = InstrumentationRegistry.getTargetContext();
+        rootView = new FrameLayout(context);
+        targetView = new View(context);
+        rootView.addView(targetView);
+        rootView.layout(0, 0, WIDTH, HEIGHT);
+        targetView.layout(200, 400, 600, 700);
+        canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void compareMaskBufferFormats() {
+        GuideMaskView argb = build(GuideMaskView.RenderMode.BITMAP, GuideMaskView.MaskBufferFormat.ARGB_8888, 1f);
+        GuideMaskView alpha = build(GuideMaskView.RenderMode.BITMAP, GuideMaskView.MaskBufferFormat.ALPHA_8, 1f);
+        GuideMaskView alphaHalf = build(GuideMaskView.RenderMode.BITMAP, GuideMaskView.MaskBufferFormat.ALPHA_8, 0.5f);
+        GuideMaskView clipPath = build(GuideMaskView.RenderMode.CLIP_PATH, GuideMaskView.MaskBufferFormat.ARGB_8888, 1f);
+
+        report("ARGB_8888", argb);
+        report("ALPHA_8", alpha);
+        report("ALPHA_8 x0.5", alphaHalf);
+        report("CLIP_PATH", clipPath);
+
+        assertEquals(argb.getMaskBufferBytes() / 4, alpha.getMaskBufferBytes());
+        assertEquals(alpha.getMaskBufferBytes() / 4, alphaHalf.getMaskBufferBytes());
+    }
+
+    private GuideMaskView build(GuideMaskView.RenderMode mode, GuideMaskView.MaskBufferFormat format, float scale) {
+        GuideMaskView maskView = new GuideMaskView.Builder(context, rootView, targetView)
+                .setRenderMode(mode)
+                .setMaskBufferFormat(format)
+                .setMaskBufferScale(scale)
+                .build();
+        maskView.reset();
+        return maskView;
+    }
+
+    /**
+     * 每次都重新绘制蒙层,统计重新绘制加合成的耗时
+     */
+    private void report(String name, GuideMaskView maskView) {
+        for (int i = 0; i < WARMUP; i++) {
+            maskView.invalidateMask();
+            maskView.onDraw(canvas);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            maskView.invalidateMask();
+            maskView.onDraw(canvas);
+        }
+        long nsPerOp = (System.nanoTime() - start) / ITERATIONS;
+        Log.i(TAG, name + ": " + maskView.getMaskBufferBytes() + " bytes, " + nsPerOp + " ns/op");
+    }
+}
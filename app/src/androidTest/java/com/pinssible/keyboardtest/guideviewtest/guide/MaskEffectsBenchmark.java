@@ -0,0 +1,135 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 羽化边缘以及模糊背景相对普通蒙层的绘制耗时以及额外内存,结果输出到logcat
+ */
+@RunWith(AndroidJUnit4.class)
+public class MaskEffectsBenchmark {
+    private static final String TAG = "MaskEffectsBenchmark";
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    private Context context;
+    private FrameLayout rootView;
+    private View targetView;
+    private Canvas canvas;
+
+    @Before
+    public void setUp() {
+        MaskBitmapPool.clear();
+        context = InstrumentationRegistry.getTargetContext();
+        rootView = new FrameLayout(context);
+        rootView.setBackgroundColor(Color.WHITE);
+        targetView = new View(context);
+        targetView.setBackgroundColor(Color.BLUE);
+        rootView.addView(targetView);
+        rootView.layout(0, 0, WIDTH, HEIGHT);
+        targetView.layout(200, 400, 600, 700);
+        canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void compareEffectsWithPlainMask() {
+        for (GuideMaskView.RenderMode mode : new GuideMaskView.RenderMode[]{GuideMaskView.RenderMode.BITMAP, GuideMaskView.RenderMode.HARDWARE_LAYER}) {
+            report(mode + " plain", build(mode, 0, 0));
+            report(mode + " feather 16", build(mode, 16, 0));
+            report(mode + " backdrop 24", build(mode, 0, 24));
+            report(mode + " feather 16 + backdrop 24", build(mode, 16, 24));
+        }
+    }
+
+    @Test
+    public void featherTextureIsReusedWhileTargetMoves() {
+        GuideMaskView maskView = build(GuideMaskView.RenderMode.BITMAP, 16, 0);
+        maskView.onDraw(canvas);
+        FeatherTexture feather = maskView.getTarget(0).feather;
+        assertEquals(1, feather.generations);
+
+        //只移动位置,纹理不重新生成
+        targetView.layout(300, 500, 700, 800);
+        maskView.getTarget(0).updateRect();
+        maskView.invalidateMask();
+        maskView.onDraw(canvas);
+        assertEquals(1, feather.generations);
+
+        //尺寸变化后重新生成
+        targetView.layout(300, 500, 800, 800);
+        maskView.getTarget(0).updateRect();
+        maskView.invalidateMask();
+        maskView.onDraw(canvas);
+        assertEquals(2, feather.generations);
+    }
+
+    @Test
+    public void backdropDoesNotTouchMaskBitmapPool() {
+        GuideMaskView maskView = build(GuideMaskView.RenderMode.BITMAP, 0, 24);
+        maskView.onDraw(canvas);
+        long pooled = MaskBitmapPool.getPooledBytes();
+        //重新截取背景既不从池中取Bitmap,释放时也不放回池中
+        maskView.invalidateBackdrop();
+        assertEquals(pooled, MaskBitmapPool.getPooledBytes());
+        maskView.detachFromRoot();
+        assertEquals(pooled, MaskBitmapPool.getPooledBytes());
+        assertEquals(0, maskView.getEffectBufferBytes());
+    }
+
+    @Test
+    public void backdropIsCapturedOnceAtShowTime() {
+        GuideMaskView maskView = build(GuideMaskView.RenderMode.BITMAP, 0, 24);
+        long bytes = maskView.getEffectBufferBytes();
+        assertEquals((WIDTH / 8) * (HEIGHT / 8) * 4, bytes);
+        maskView.detachFromRoot();
+        assertEquals(0, maskView.getEffectBufferBytes());
+    }
+
+    private GuideMaskView build(GuideMaskView.RenderMode mode, float feather, float backdrop) {
+        GuideMaskView maskView = new GuideMaskView.Builder(context, rootView, targetView)
+                .setRenderMode(mode)
+                .setFeatherRadius(feather)
+                .setBackdropBlurRadius(backdrop)
+                .build();
+        maskView.reset();
+        maskView.attachToRoot();
+        return maskView;
+    }
+
+    /**
+     * 统计截取背景的一次性耗时,以及每次重新绘制蒙层加合成的耗时
+     */
+    private void report(String name, GuideMaskView maskView) {
+        long captureStart = System.nanoTime();
+        maskView.invalidateBackdrop();
+        long captureNs = System.nanoTime() - captureStart;
+        for (int i = 0; i < WARMUP; i++) {
+            maskView.invalidateMask();
+            maskView.onDraw(canvas);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            maskView.invalidateMask();
+            maskView.onDraw(canvas);
+        }
+        long nsPerOp = (System.nanoTime() - start) / ITERATIONS;
+        Log.i(TAG, name + ": " + nsPerOp + " ns/op, capture " + captureNs + " ns, effects "
+                + maskView.getEffectBufferBytes() + " bytes");
+        maskView.detachFromRoot();
+    }
+}
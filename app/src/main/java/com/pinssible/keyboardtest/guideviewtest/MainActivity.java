@@ -1,17 +1,16 @@
 package com.pinssible.keyboardtest.guideviewtest;
 
 import android.app.Activity;
-import android.graphics.Color;
 import android.os.Bundle;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.LinearLayout;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import com.pinssible.keyboardtest.guideviewtest.guide.GuideComponent;
 import com.pinssible.keyboardtest.guideviewtest.guide.GuideMaskView;
+import com.pinssible.keyboardtest.guideviewtest.guide.GuidePlan;
+import com.pinssible.keyboardtest.guideviewtest.guide.GuideSequence;
 
 public class MainActivity extends Activity {
 
@@ -19,8 +18,7 @@ public class MainActivity extends Activity {
     private GuideMaskView view;
     private RelativeLayout container, container2;
     private LinearLayout testLin;
-    private GuideComponent component;
-    private GuideMaskView maskView;
+    private GuideSequence sequence;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -34,26 +32,12 @@ public class MainActivity extends Activity {
             @Override
             public void onClick(View view) {
                 Toast.makeText(MainActivity.this, "Test", Toast.LENGTH_SHORT).show();
-                component.dismiss();
+                sequence.next();
             }
         });
 
-        LayoutInflater li = LayoutInflater.from(this);
-        View attachedView = li.inflate(R.layout.layout_attached, null);
-
-        //创造MaskView
-        maskView = new GuideMaskView.Builder(this, container, testLin)
-                .setMaskColor(Color.RED)
-                .setTargetShape(GuideMaskView.TargetShape.Oval)
-                .setOvalXRadius(300)
-                .setOvalYRadius(500)
-                .build();
-        //创造Component
-        component = new GuideComponent.Builder(attachedView)
-                .setComponentDirection(GuideComponent.ComponentDirection.LEFT_TOP)
-                .setXOffset(150)
-                .setYOffset(150)
-                .build();
-        component.showOnMaskView(maskView);
+        //引导定义在res/xml/guide_main.xml中,只解析一次
+        sequence = GuidePlan.load(this, R.xml.guide_main).inflate(container);
+        sequence.start();
     }
 }
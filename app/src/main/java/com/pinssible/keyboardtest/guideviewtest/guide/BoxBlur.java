@@ -0,0 +1,56 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+/**
+ * ARGB像素的盒式模糊,每次迭代为一次水平加一次垂直的滑动窗口平均,
+ * 耗时只与像素数以及迭代次数有关,与半径无关,迭代3次接近高斯模糊
+ */
+final class BoxBlur {
+    private BoxBlur() {
+    }
+
+    /**
+     * @param pixels  宽*高的像素,结果写回
+     * @param scratch 与pixels相同长度的临时数组
+     */
+    static void blur(int[] pixels, int[] scratch, int width, int height, int radius, int iterations) {
+        if (radius <= 0 || width <= 0 || height <= 0) {
+            return;
+        }
+        for (int i = 0; i < iterations; i++) {
+            //水平模糊并转置,再对转置结果水平模糊并转置回来,即垂直模糊
+            blurTransposed(pixels, scratch, width, height, radius);
+            blurTransposed(scratch, pixels, height, width, radius);
+        }
+    }
+
+    /**
+     * 对in的每一行做滑动窗口平均,结果转置写入out,超出边缘时使用边缘像素
+     */
+    private static void blurTransposed(int[] in, int[] out, int width, int height, int radius) {
+        int div = radius * 2 + 1;
+        int last = width - 1;
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            int a = 0;
+            int r = 0;
+            int g = 0;
+            int b = 0;
+            for (int i = -radius; i <= radius; i++) {
+                int color = in[row + Math.min(Math.max(i, 0), last)];
+                a += color >>> 24;
+                r += (color >> 16) & 0xFF;
+                g += (color >> 8) & 0xFF;
+                b += color & 0xFF;
+            }
+            for (int x = 0; x < width; x++) {
+                out[x * height + y] = ((a / div) << 24) | ((r / div) << 16) | ((g / div) << 8) | (b / div);
+                int add = in[row + Math.min(x + radius + 1, last)];
+                int remove = in[row + Math.max(x - radius, 0)];
+                a += (add >>> 24) - (remove >>> 24);
+                r += ((add >> 16) & 0xFF) - ((remove >> 16) & 0xFF);
+                g += ((add >> 8) & 0xFF) - ((remove >> 8) & 0xFF);
+                b += (add & 0xFF) - (remove & 0xFF);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.graphics.Region;
+import android.os.Build;
+
+/**
+ * 按API版本选择Canvas的裁剪以及图层接口,compileSdk 26中废弃的旧接口只在这里调用
+ */
+final class CanvasCompat {
+    private CanvasCompat() {
+    }
+
+    /**
+     * 裁掉path内的区域,只在path以外绘制
+     */
+    static void clipOutPath(Canvas canvas, Path path) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            canvas.clipOutPath(path);
+        } else {
+            Legacy.clipOutPath(canvas, path);
+        }
+    }
+
+    /**
+     * 保存与图层相关的全部状态,API 21以上不再需要saveFlags
+     */
+    static int saveLayer(Canvas canvas, float left, float top, float right, float bottom, Paint paint) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return canvas.saveLayer(left, top, right, bottom, paint);
+        }
+        return Legacy.saveLayer(canvas, left, top, right, bottom, paint);
+    }
+
+    static int saveLayer(Canvas canvas, RectF bounds, Paint paint) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return canvas.saveLayer(bounds, paint);
+        }
+        return Legacy.saveLayer(canvas, bounds.left, bounds.top, bounds.right, bounds.bottom, paint);
+    }
+
+    /**
+     * 旧版本上没有替代接口的调用
+     */
+    @SuppressWarnings("deprecation")
+    private static final class Legacy {
+        static void clipOutPath(Canvas canvas, Path path) {
+            canvas.clipPath(path, Region.Op.DIFFERENCE);
+        }
+
+        static int saveLayer(Canvas canvas, float left, float top, float right, float bottom, Paint paint) {
+            return canvas.saveLayer(left, top, right, bottom, paint, Canvas.ALL_SAVE_FLAG);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+/**
+ * {@link GuideComponent.ComponentDirection#AUTO}的摆放计算,只依赖尺寸,结果确定,
+ * 按下方、上方、后方(end)、前方(start)的顺序选择第一个能完整放下且不遮挡抠出区域的方向,
+ * 都放不下时居中显示
+ */
+public final class ComponentPlacement {
+    /**
+     * Component相对抠出区域的方向
+     */
+    public enum Side {
+        BELOW, //下方
+        ABOVE, //上方
+        END, //后方,从左到右布局时为右边
+        START, //前方,从左到右布局时为左边
+        CENTER //蒙版居中
+    }
+
+    private ComponentPlacement() {
+    }
+
+    /**
+     * @param targetLeft   抠出区域,与蒙版同一坐标系
+     * @param width        Component测量后的宽度
+     * @param height       Component测量后的高度
+     * @param boundsWidth  蒙版宽度
+     * @param boundsHeight 蒙版高度
+     * @param xGap         与抠出区域水平方向的距离
+     * @param yGap         与抠出区域竖直方向的距离
+     * @param rtl          是否从右到左布局
+     * @param out          Component的位置,out[0]为left,out[1]为top
+     * @return 选择的方向
+     */
+    public static Side place(float targetLeft, float targetTop, float targetRight, float targetBottom,
+                             int width, int height, int boundsWidth, int boundsHeight,
+                             int xGap, int yGap, boolean rtl, int[] out) {
+        int centerLeft = clamp(Math.round((targetLeft + targetRight - width) / 2), width, boundsWidth);
+        int centerTop = clamp(Math.round((targetTop + targetBottom - height) / 2), height, boundsHeight);
+        boolean fitsWidth = width <= boundsWidth;
+        boolean fitsHeight = height <= boundsHeight;
+
+        int below = (int) Math.ceil(targetBottom) + yGap;
+        if (fitsWidth && below + height <= boundsHeight) {
+            return set(out, centerLeft, below, Side.BELOW);
+        }
+        int above = (int) Math.floor(targetTop) - yGap - height;
+        if (fitsWidth && above >= 0) {
+            return set(out, centerLeft, above, Side.ABOVE);
+        }
+        int right = (int) Math.ceil(targetRight) + xGap;
+        int left = (int) Math.floor(targetLeft) - xGap - width;
+        boolean fitsRight = fitsHeight && right + width <= boundsWidth;
+        boolean fitsLeft = fitsHeight && left >= 0;
+        if (rtl ? fitsLeft : fitsRight) {
+            return set(out, rtl ? left : right, centerTop, Side.END);
+        }
+        if (rtl ? fitsRight : fitsLeft) {
+            return set(out, rtl ? right : left, centerTop, Side.START);
+        }
+        return set(out, clamp((boundsWidth - width) / 2, width, boundsWidth),
+                clamp((boundsHeight - height) / 2, height, boundsHeight), Side.CENTER);
+    }
+
+    /**
+     * 限制在蒙版范围内,放不下时与起点对齐
+     */
+    private static int clamp(int position, int size, int bounds) {
+        return Math.max(0, Math.min(position, bounds - size));
+    }
+
+    private static Side set(int[] out, int left, int top, Side side) {
+        out[0] = left;
+        out[1] = top;
+        return side;
+    }
+}
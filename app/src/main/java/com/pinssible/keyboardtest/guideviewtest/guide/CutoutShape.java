@@ -0,0 +1,198 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.graphics.Region;
+import android.graphics.drawable.Drawable;
+
+/**
+ * 目标抠出区域的形状,内置形状见{@link CutoutShapes}.
+ * 只在目标区域或者目标参数变化后调用{@link #compute},结果缓存在目标上,绘制时直接使用
+ */
+public interface CutoutShape {
+    /**
+     * 计算抠出区域
+     *
+     * @param target     目标,可以读取padding等参数
+     * @param targetRect 目标相对rootView的区域
+     * @param geometry   输出,调用前已经清空
+     */
+    void compute(GuideTarget target, RectF targetRect, Geometry geometry);
+
+    /**
+     * 缓存的抠出区域,由Path或者Drawable的透明度表示,
+     * 同时记录外接矩形以及圆角半径,用于局部刷新、触摸判断以及步骤之间的过渡动画
+     */
+    final class Geometry {
+        /**
+         * 触摸判断方式,圆角矩形以及椭圆直接计算,任意Path使用缓存的Region,透明度抠出使用外接矩形
+         */
+        enum Kind {
+            ROUND_RECT,
+            OVAL,
+            PATH,
+            BOUNDS
+        }
+
+        final RectF bounds = new RectF();
+        float rx;
+        float ry;
+        final Path path = new Path();
+        Drawable alphaMask;
+        float maskLeft;
+        float maskTop;
+        Kind kind = Kind.BOUNDS;
+        //圆角矩形四个角的x,y半径,依次为左上、右上、右下、左下
+        private final float[] radii = new float[8];
+        //任意Path第一次触摸判断时转换为Region,形状变化前一直复用
+        private Region mRegion;
+        private Region mClipRegion;
+        private boolean regionValid;
+
+        Geometry() {
+        }
+
+        void reset() {
+            bounds.setEmpty();
+            rx = 0;
+            ry = 0;
+            path.rewind();
+            alphaMask = null;
+            kind = Kind.BOUNDS;
+            regionValid = false;
+        }
+
+        /**
+         * 点(x,y)是否在抠出区域内,不分配对象
+         */
+        boolean contains(float x, float y) {
+            if (!bounds.contains(x, y)) {
+                return false;
+            }
+            switch (kind) {
+                case OVAL:
+                    float dx = (x - bounds.centerX()) / rx;
+                    float dy = (y - bounds.centerY()) / ry;
+                    return dx * dx + dy * dy <= 1;
+                case ROUND_RECT:
+                    return roundRectContains(x, y);
+                case PATH:
+                    if (!regionValid) {
+                        if (mRegion == null) {
+                            mRegion = new Region();
+                            mClipRegion = new Region();
+                        }
+                        mClipRegion.set((int) Math.floor(bounds.left), (int) Math.floor(bounds.top), (int) Math.ceil(bounds.right), (int) Math.ceil(bounds.bottom));
+                        mRegion.setPath(path, mClipRegion);
+                        regionValid = true;
+                    }
+                    return mRegion.contains((int) x, (int) y);
+                default:
+                    return true;
+            }
+        }
+
+        /**
+         * 已经在外接矩形内,只需要判断是否在所在角的椭圆弧外
+         */
+        private boolean roundRectContains(float x, float y) {
+            int corner = y < bounds.centerY() ? (x < bounds.centerX() ? 0 : 1) : (x < bounds.centerX() ? 3 : 2);
+            return cornerContains(bounds, radii[corner * 2], radii[corner * 2 + 1], x, y);
+        }
+
+        /**
+         * 点(x,y)是否在四个角半径相同的圆角矩形内,例如切换动画中插值后的区域
+         */
+        static boolean roundRectContains(RectF bounds, float rx, float ry, float x, float y) {
+            return bounds.contains(x, y) && cornerContains(bounds, rx, ry, x, y);
+        }
+
+        /**
+         * 外接矩形内的点是否在所在角半径为rx,ry的椭圆弧内侧,半径超过一半边长时按一半计算
+         */
+        private static boolean cornerContains(RectF bounds, float rx, float ry, float x, float y) {
+            boolean left = x < bounds.centerX();
+            boolean top = y < bounds.centerY();
+            float cornerRx = Math.min(rx, bounds.width() / 2);
+            float cornerRy = Math.min(ry, bounds.height() / 2);
+            if (cornerRx <= 0 || cornerRy <= 0) {
+                return true;
+            }
+            float dx = left ? bounds.left + cornerRx - x : x - (bounds.right - cornerRx);
+            float dy = top ? bounds.top + cornerRy - y : y - (bounds.bottom - cornerRy);
+            if (dx <= 0 || dy <= 0) {
+                return true;
+            }
+            dx /= cornerRx;
+            dy /= cornerRy;
+            return dx * dx + dy * dy <= 1;
+        }
+
+        public void setRoundRect(float left, float top, float right, float bottom, float rx, float ry) {
+            bounds.set(left, top, right, bottom);
+            this.rx = rx;
+            this.ry = ry;
+            for (int i = 0; i < 8; i += 2) {
+                this.radii[i] = rx;
+                this.radii[i + 1] = ry;
+            }
+            kind = Kind.ROUND_RECT;
+            path.addRoundRect(bounds, rx, ry, Path.Direction.CW);
+        }
+
+        /**
+         * @param radii 依次为左上、右上、右下、左下的x,y半径,共8个
+         */
+        public void setRoundRect(float left, float top, float right, float bottom, float[] radii) {
+            bounds.set(left, top, right, bottom);
+            //过渡动画使用平均圆角
+            float sumX = 0;
+            float sumY = 0;
+            for (int i = 0; i < 8; i += 2) {
+                sumX += radii[i];
+                sumY += radii[i + 1];
+            }
+            rx = sumX / 4;
+            ry = sumY / 4;
+            System.arraycopy(radii, 0, this.radii, 0, 8);
+            kind = Kind.ROUND_RECT;
+            path.addRoundRect(bounds, radii, Path.Direction.CW);
+        }
+
+        public void setOval(float left, float top, float right, float bottom) {
+            bounds.set(left, top, right, bottom);
+            rx = bounds.width() / 2;
+            ry = bounds.height() / 2;
+            kind = Kind.OVAL;
+            path.addOval(bounds, Path.Direction.CW);
+        }
+
+        /**
+         * @param dx,dy path的偏移
+         */
+        public void setPath(Path source, float dx, float dy) {
+            path.set(source);
+            path.offset(dx, dy);
+            path.computeBounds(bounds, true);
+            rx = 0;
+            ry = 0;
+            kind = Kind.PATH;
+        }
+
+        /**
+         * 按drawable的透明度抠出,绘制时移动到(left,top),不会修改drawable的bounds
+         */
+        public void setAlphaMask(Drawable drawable, float left, float top, float right, float bottom) {
+            alphaMask = drawable;
+            maskLeft = left;
+            maskTop = top;
+            bounds.set(left, top, right, bottom);
+            rx = 0;
+            ry = 0;
+        }
+
+        public RectF getBounds() {
+            return bounds;
+        }
+    }
+}
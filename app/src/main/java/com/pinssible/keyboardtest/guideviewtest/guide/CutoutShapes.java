@@ -0,0 +1,170 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.Outline;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewOutlineProvider;
+
+/**
+ * 内置的抠出形状
+ */
+public final class CutoutShapes {
+    /**
+     * 圆角矩形,使用目标的targetRadius以及targetPadding
+     */
+    public static final CutoutShape ROUND_RECTANGLE = new CutoutShape() {
+        @Override
+        public void compute(GuideTarget target, RectF targetRect, CutoutShape.Geometry geometry) {
+            float padding = target.targetPadding;
+            geometry.setRoundRect(targetRect.left - padding, targetRect.top - padding, targetRect.right + padding, targetRect.bottom + padding,
+                    target.targetRadius, target.targetRadius);
+        }
+    };
+
+    /**
+     * 圆形,使用目标的roundRadius,没有设置时为目标对角线的一半加上targetPadding
+     */
+    public static final CutoutShape ROUND = new CutoutShape() {
+        @Override
+        public void compute(GuideTarget target, RectF targetRect, CutoutShape.Geometry geometry) {
+            float radius = target.roundRadius;
+            if (radius <= 0) {
+                //计算斜边以及Padding
+                radius = ((float) Math.sqrt(targetRect.height() * targetRect.height() + targetRect.width() * targetRect.width()) / 2) + target.targetPadding;
+            }
+            geometry.setOval(targetRect.centerX() - radius, targetRect.centerY() - radius, targetRect.centerX() + radius, targetRect.centerY() + radius);
+        }
+    };
+
+    /**
+     * 椭圆,使用目标的ovalXRadius以及ovalYRadius,没有设置时为目标区域加上targetPadding
+     */
+    public static final CutoutShape OVAL = new CutoutShape() {
+        @Override
+        public void compute(GuideTarget target, RectF targetRect, CutoutShape.Geometry geometry) {
+            if (target.ovalXRadius > 0 && target.ovalYRadius > 0) {
+                geometry.setOval(targetRect.centerX() - target.ovalXRadius, targetRect.centerY() - target.ovalYRadius,
+                        targetRect.centerX() + target.ovalXRadius, targetRect.centerY() + target.ovalYRadius);
+            } else {
+                float padding = target.targetPadding;
+                geometry.setOval(targetRect.left - padding, targetRect.top - padding, targetRect.right + padding, targetRect.bottom + padding);
+            }
+        }
+    };
+
+    /**
+     * 使用TargetView的Outline(API 24以后可以读取的矩形或圆角矩形Outline),无法读取时与{@link #ROUND_RECTANGLE}相同
+     */
+    public static final CutoutShape OUTLINE = new CutoutShape() {
+        private final Rect mOutlineRect = new Rect();
+
+        @Override
+        public void compute(GuideTarget target, RectF targetRect, CutoutShape.Geometry geometry) {
+            float radius = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N ? getOutlineRect(target.targetView, mOutlineRect) : -1;
+            if (radius < 0) {
+                ROUND_RECTANGLE.compute(target, targetRect, geometry);
+                return;
+            }
+            float padding = target.targetPadding;
+            geometry.setRoundRect(targetRect.left + mOutlineRect.left - padding, targetRect.top + mOutlineRect.top - padding,
+                    targetRect.left + mOutlineRect.right + padding, targetRect.top + mOutlineRect.bottom + padding,
+                    radius, radius);
+        }
+    };
+
+    /**
+     * 按TargetView背景的透明度抠出,需要离屏绘制,{@link GuideMaskView.RenderMode#CLIP_PATH}时改用图层
+     */
+    public static final CutoutShape BACKGROUND_ALPHA = new CutoutShape() {
+        @Override
+        public void compute(GuideTarget target, RectF targetRect, CutoutShape.Geometry geometry) {
+            Drawable background = target.targetView == null ? null : target.targetView.getBackground();
+            if (background == null) {
+                ROUND_RECTANGLE.compute(target, targetRect, geometry);
+                return;
+            }
+            //背景的bounds由TargetView设置,为TargetView自身的区域
+            geometry.setAlphaMask(background, targetRect.left, targetRect.top, targetRect.right, targetRect.bottom);
+        }
+    };
+
+    private CutoutShapes() {
+    }
+
+    /**
+     * 与{@link GuideMaskView.TargetShape}对应的形状
+     */
+    public static CutoutShape of(GuideMaskView.TargetShape targetShape) {
+        switch (targetShape) {
+            case Round:
+                return ROUND;
+            case Oval:
+                return OVAL;
+            default:
+                return ROUND_RECTANGLE;
+        }
+    }
+
+    /**
+     * 任意Path,坐标相对TargetView左上角,不使用targetPadding.创建时复制path,之后修改path不会生效
+     */
+    public static CutoutShape path(Path path) {
+        final Path source = new Path(path);
+        return new CutoutShape() {
+            @Override
+            public void compute(GuideTarget target, RectF targetRect, CutoutShape.Geometry geometry) {
+                geometry.setPath(source, targetRect.left, targetRect.top);
+            }
+        };
+    }
+
+    /**
+     * 四个角半径不同的圆角矩形,使用目标的targetPadding
+     */
+    public static CutoutShape cornerRadii(float topLeft, float topRight, float bottomRight, float bottomLeft) {
+        final float[] radii = {topLeft, topLeft, topRight, topRight, bottomRight, bottomRight, bottomLeft, bottomLeft};
+        return new CutoutShape() {
+            @Override
+            public void compute(GuideTarget target, RectF targetRect, CutoutShape.Geometry geometry) {
+                float padding = target.targetPadding;
+                geometry.setRoundRect(targetRect.left - padding, targetRect.top - padding, targetRect.right + padding, targetRect.bottom + padding, radii);
+            }
+        };
+    }
+
+    /**
+     * 按drawable的透明度抠出,drawable缩放到目标区域加上targetPadding,
+     * 需要离屏绘制,{@link GuideMaskView.RenderMode#CLIP_PATH}时改用图层
+     */
+    public static CutoutShape alphaMask(final Drawable drawable) {
+        return new CutoutShape() {
+            @Override
+            public void compute(GuideTarget target, RectF targetRect, CutoutShape.Geometry geometry) {
+                float padding = target.targetPadding;
+                float left = targetRect.left - padding;
+                float top = targetRect.top - padding;
+                float right = targetRect.right + padding;
+                float bottom = targetRect.bottom + padding;
+                drawable.setBounds(0, 0, Math.round(right - left), Math.round(bottom - top));
+                geometry.setAlphaMask(drawable, left, top, right, bottom);
+            }
+        };
+    }
+
+    /**
+     * @return Outline的圆角半径,不是矩形或圆角矩形Outline时返回-1
+     */
+    private static float getOutlineRect(View view, Rect outRect) {
+        ViewOutlineProvider provider = view == null ? null : view.getOutlineProvider();
+        if (provider == null) {
+            return -1;
+        }
+        Outline outline = new Outline();
+        provider.getOutline(view, outline);
+        return outline.getRect(outRect) ? outline.getRadius() : -1;
+    }
+}
@@ -0,0 +1,104 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.Bitmap;
+import android.graphics.BlurMaskFilter;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+/**
+ * 目标羽化边缘的纹理,将抠出形状模糊后绘制到一张ALPHA_8的小Bitmap上,
+ * 形状以及尺寸不变时一直复用,目标移动时只改变绘制位置
+ */
+final class FeatherTexture {
+    private Bitmap mBitmap;
+    private Canvas mCanvas;
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private float maskFilterRadius;
+
+    //生成纹理时的形状以及尺寸
+    private float width;
+    private float height;
+    private float radius;
+    private boolean dirty = true;
+
+    /**
+     * 纹理四周相对抠出区域外扩的像素
+     */
+    int padding;
+
+    /**
+     * 纹理重新生成的次数,用于测试复用
+     */
+    int generations;
+
+    /**
+     * 形状参数变化,下一次使用时重新生成
+     */
+    void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * @param cutout 已经计算好的抠出区域
+     * @param radius 羽化半径
+     * @return 纹理,左上角对应抠出区域外接矩形左上角减去{@link #padding}
+     */
+    Bitmap get(CutoutShape.Geometry cutout, float radius) {
+        RectF bounds = cutout.bounds;
+        if (!dirty && mBitmap != null && this.radius == radius && width == bounds.width() && height == bounds.height()) {
+            return mBitmap;
+        }
+        dirty = false;
+        generations++;
+        this.radius = radius;
+        width = bounds.width();
+        height = bounds.height();
+        padding = paddingFor(radius);
+        int bitmapWidth = Math.max(1, (int) Math.ceil(width) + padding * 2);
+        int bitmapHeight = Math.max(1, (int) Math.ceil(height) + padding * 2);
+        //纹理很小,不放入MaskBitmapPool,避免挤掉全屏Bitmap
+        if (mBitmap == null || mBitmap.getWidth() != bitmapWidth || mBitmap.getHeight() != bitmapHeight) {
+            if (mBitmap != null) {
+                mBitmap.recycle();
+            }
+            mBitmap = Bitmap.createBitmap(bitmapWidth, bitmapHeight, Bitmap.Config.ALPHA_8);
+        }
+        if (mCanvas == null) {
+            mCanvas = new Canvas(mBitmap);
+        } else {
+            mCanvas.setBitmap(mBitmap);
+        }
+        if (maskFilterRadius != radius) {
+            mPaint.setMaskFilter(new BlurMaskFilter(radius, BlurMaskFilter.Blur.NORMAL));
+            maskFilterRadius = radius;
+        }
+        mBitmap.eraseColor(0);
+        mCanvas.save();
+        mCanvas.translate(padding - bounds.left, padding - bounds.top);
+        mCanvas.drawPath(cutout.path, mPaint);
+        mCanvas.restore();
+        return mBitmap;
+    }
+
+    void release() {
+        if (mCanvas != null) {
+            mCanvas.setBitmap(null);
+        }
+        if (mBitmap != null) {
+            mBitmap.recycle();
+            mBitmap = null;
+        }
+    }
+
+    long getByteCount() {
+        return mBitmap == null ? 0 : MaskBitmapPool.byteCount(mBitmap);
+    }
+
+    /**
+     * 模糊向外扩散的距离,约为半径的两倍
+     */
+    static int paddingFor(float radius) {
+        return (int) Math.ceil(radius * 2);
+    }
+}
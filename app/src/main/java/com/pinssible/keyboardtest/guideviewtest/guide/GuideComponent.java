@@ -1,7 +1,6 @@
 package com.pinssible.keyboardtest.guideviewtest.guide;
 
 import android.view.View;
-import android.view.ViewTreeObserver;
 
 /**
  * 相对与某个TargetView的指导View
@@ -34,6 +33,22 @@ public class GuideComponent {
      */
     protected int yOffset;
 
+    /**
+     * 依附的目标序号,见{@link GuideMaskView#getTarget(int)}
+     */
+    protected int targetIndex;
+
+    /**
+     * 摆放时所依附目标的左上角,跟踪目标移动时Component只做平移,不重新布局
+     */
+    float anchorX;
+    float anchorY;
+
+    /**
+     * {@link ComponentDirection#AUTO}时最近一次摆放选择的方向
+     */
+    ComponentPlacement.Side placedSide;
+
 
     /**
      * 距离TargetView 的方向
@@ -42,15 +57,21 @@ public class GuideComponent {
         LEFT_TOP, //左上
         LEFT_BOTTOM,  //左下
         RIGHT_TOP, //右上
-        RIGHT_BOTTOM  //右下
+        RIGHT_BOTTOM,  //右下
+        AUTO //根据Component大小自动选择不会超出蒙版的方向,见ComponentPlacement,偏移作为与抠出区域的距离
     }
 
     public GuideComponent(View attachedView, GuideMaskView maskView, ComponentDirection componentDirection, int xOffset, int yOffset) {
+        this(attachedView, maskView, componentDirection, xOffset, yOffset, 0);
+    }
+
+    public GuideComponent(View attachedView, GuideMaskView maskView, ComponentDirection componentDirection, int xOffset, int yOffset, int targetIndex) {
         this.attachedView = attachedView;
         this.maskView = maskView;
         this.componentDirection = componentDirection;
         this.xOffset = xOffset;
         this.yOffset = yOffset;
+        this.targetIndex = targetIndex;
     }
 
     public View getAttachedView() {
@@ -65,14 +86,49 @@ public class GuideComponent {
         return componentDirection;
     }
 
+    /**
+     * 已经显示时只重新摆放Component并刷新变化的区域
+     */
+    public void setComponentDirection(ComponentDirection componentDirection) {
+        this.componentDirection = componentDirection;
+        updateOnMaskView();
+    }
+
+    /**
+     * @return {@link ComponentDirection#AUTO}时实际摆放的方向,还没有摆放或者不是AUTO时为null
+     */
+    public ComponentPlacement.Side getPlacedSide() {
+        return placedSide;
+    }
+
     public int getxOffset() {
         return xOffset;
     }
 
+    public void setxOffset(int xOffset) {
+        this.xOffset = xOffset;
+        updateOnMaskView();
+    }
+
     public int getyOffset() {
         return yOffset;
     }
 
+    public void setyOffset(int yOffset) {
+        this.yOffset = yOffset;
+        updateOnMaskView();
+    }
+
+    private void updateOnMaskView() {
+        if (maskView != null) {
+            maskView.updateComponent(this);
+        }
+    }
+
+    public int getTargetIndex() {
+        return targetIndex;
+    }
+
     /**
      * 建造者
      */
@@ -102,12 +158,18 @@ public class GuideComponent {
          */
         private int yOffset;
 
+        /**
+         * 依附的目标序号
+         */
+        private int targetIndex;
+
 
         public Builder(View attachedView) {
             this.attachedView = attachedView;
             componentDirection = ComponentDirection.LEFT_TOP;
             xOffset = 0;
             yOffset = 0;
+            targetIndex = 0;
         }
 
         public void setMaskView(GuideMaskView maskView) {
@@ -139,8 +201,16 @@ public class GuideComponent {
             return this;
         }
 
+        /**
+         * @param targetIndex {@link #targetIndex}
+         */
+        public Builder setTargetIndex(int targetIndex) {
+            this.targetIndex = targetIndex;
+            return this;
+        }
+
         public GuideComponent build() {
-            return new GuideComponent(attachedView, maskView, componentDirection, xOffset, yOffset);
+            return new GuideComponent(attachedView, maskView, componentDirection, xOffset, yOffset, targetIndex);
         }
     }
 
@@ -152,8 +222,7 @@ public class GuideComponent {
      */
     public void showOnMaskView(GuideMaskView maskView) {
         this.maskView = maskView;
-        maskView.getTargetView().getViewTreeObserver().addOnGlobalLayoutListener(new TargetViewLayoutListener(this, maskView));
-        maskView.getTargetView().invalidate(); //刷新
+        maskView.scheduleComponent(this);
     }
 
     /**
@@ -161,8 +230,7 @@ public class GuideComponent {
      */
     public void show() {
         if (maskView != null) {
-            maskView.getTargetView().getViewTreeObserver().addOnGlobalLayoutListener(new TargetViewLayoutListener(this, maskView));
-            maskView.getTargetView().invalidate(); //刷新
+            maskView.scheduleComponent(this);
         }
     }
 
@@ -174,27 +242,4 @@ public class GuideComponent {
             maskView.removeComponent(this);
         }
     }
-
-    private static class TargetViewLayoutListener implements ViewTreeObserver.OnGlobalLayoutListener {
-        private GuideMaskView view;
-        private GuideComponent component;
-
-        public TargetViewLayoutListener(GuideComponent component, GuideMaskView maskView) {
-            this.view = maskView;
-            this.component = component;
-        }
-
-        @Override
-        public void onGlobalLayout() {
-            //重新初始化
-            view.reset();
-            //添加AttachedView
-            view.addComponent(component);
-            //Container添加蒙版
-            view.getMaskRootView().addView(view);
-            //蒙版最高层显示
-            view.bringToFront();
-            view.getTargetView().getViewTreeObserver().removeOnGlobalLayoutListener(this);
-        }
-    }
 }
@@ -0,0 +1,37 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import com.pinssible.keyboardtest.guideviewtest.BuildConfig;
+
+/**
+ * 引导的诊断开关,release包中{@link #ENABLED}为常量false,
+ * 所有以它为条件的日志拼接以及调试绘制都会在编译时被去掉
+ */
+public final class GuideDiagnostics {
+    /**
+     * 是否编译诊断代码
+     */
+    public static final boolean ENABLED = BuildConfig.DEBUG;
+
+    private static GuideLogger logger = ENABLED ? GuideLogger.LOGCAT : GuideLogger.NONE;
+
+    private GuideDiagnostics() {
+    }
+
+    /**
+     * @param logger 诊断日志输出,null为不输出
+     */
+    public static void setLogger(GuideLogger logger) {
+        GuideDiagnostics.logger = logger == null ? GuideLogger.NONE : logger;
+    }
+
+    /**
+     * 调用方先判断,避免在不输出日志时拼接字符串
+     */
+    static boolean isLogging() {
+        return ENABLED && logger != GuideLogger.NONE;
+    }
+
+    static void log(String tag, String message) {
+        logger.log(tag, message);
+    }
+}
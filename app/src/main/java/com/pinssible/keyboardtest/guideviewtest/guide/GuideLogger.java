@@ -0,0 +1,29 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.util.Log;
+
+/**
+ * 引导的诊断日志输出,通过{@link GuideDiagnostics#setLogger(GuideLogger)}替换
+ */
+public interface GuideLogger {
+    /**
+     * 不输出任何日志
+     */
+    GuideLogger NONE = new GuideLogger() {
+        @Override
+        public void log(String tag, String message) {
+        }
+    };
+
+    /**
+     * 以debug级别输出到logcat
+     */
+    GuideLogger LOGCAT = new GuideLogger() {
+        @Override
+        public void log(String tag, String message) {
+            Log.d(tag, message);
+        }
+    };
+
+    void log(String tag, String message);
+}
@@ -1,25 +1,43 @@
 package com.pinssible.keyboardtest.guideviewtest.guide;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Path;
 import android.graphics.PorterDuff;
 import android.graphics.PorterDuffXfermode;
 import android.graphics.Rect;
 import android.graphics.RectF;
-import android.util.Log;
+import android.os.Build;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.widget.RelativeLayout;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * 自定义GuideView
+ * 自定义GuideView,扁平的ViewGroup,Component按目标位置直接摆放,不需要多次测量
  */
-public class GuideMaskView extends RelativeLayout {
-    private String TAG = "GuideMaskView";
-    private RectF targetViewRectF = new RectF(0, 0, 0, 0);
+public class GuideMaskView extends ViewGroup {
+    private static final PorterDuffXfermode CLEAR_XFERMODE = new PorterDuffXfermode(PorterDuff.Mode.CLEAR); //将目标区域擦除
+    private static final PorterDuffXfermode DST_OUT_XFERMODE = new PorterDuffXfermode(PorterDuff.Mode.DST_OUT); //按透明度擦除目标区域
+    private static final int DIRTY_MARGIN = 1; //局部刷新时为抗锯齿边缘预留的像素
+
+    private static final String TAG = "GuideMaskView";
+
+    private static final int BACKDROP_DOWNSAMPLE = 8; //模糊背景相对蒙版的缩小倍数,像素数为蒙版的1/64
+    private static final int BACKDROP_BLUR_ITERATIONS = 3; //盒式模糊迭代次数,3次接近高斯模糊
 
     //计算出自己的宽高以及位置
     private Rect maskRect = new Rect();
@@ -27,7 +45,71 @@ public class GuideMaskView extends RelativeLayout {
     //透明
     private Bitmap mEraserBitmap;
     private Canvas mEraserCanvas;
-    private Paint mEraserPaint; //抠出显示Paint
+    private final Paint mEraserPaint = new Paint(Paint.ANTI_ALIAS_FLAG); //抠出显示Paint
+    private final Paint mAlphaMaskPaint = new Paint(); //按Drawable透明度抠出时合成图层的Paint
+    private final Paint mBitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG); //将蒙层Bitmap绘制到Canvas上的Paint
+    private final RectF mMaskDstRectF = new RectF(); //缩放的蒙层Bitmap绘制到Canvas上的区域
+
+    //上一次绘制时实际使用的绘制方式
+    private RenderMode resolvedRenderMode;
+
+    //所有目标抠出区域合并后的Path,只在几何变化时重新计算
+    private final Path mCutoutPath = new Path();
+    //是否有按Drawable透明度抠出的目标,这些目标不在mCutoutPath中
+    private boolean hasAlphaMask;
+    //蒙层几何或颜色发生变化,需要重新计算抠出区域并重新绘制蒙层Bitmap
+    private boolean maskDirty = true;
+    //蒙层Bitmap需要整体重新绘制,否则只重新绘制mRasterRect区域
+    private boolean rasterFull = true;
+    private final Rect mRasterRect = new Rect();
+
+    //目标切换动画,插值结果写入预先分配好的几何对象中
+    private ValueAnimator mTransitionAnimator;
+    private boolean transitionRunning;
+    private boolean transitionCanceled;
+    private final RectF mFromRectF = new RectF();
+    private final RectF mToRectF = new RectF();
+    private final RectF mTransitionRectF = new RectF();
+    private float mFromRx, mFromRy, mToRx, mToRy, mTransitionRx, mTransitionRy;
+    private final RectF mLastTransitionBounds = new RectF(); //上一帧的抠出区域
+    private final RectF mTransitionBounds = new RectF();
+    final Rect mTransitionDirtyRect = new Rect(); //最近一帧切换动画刷新的区域
+
+    //局部刷新,Component变化时只刷新抠出区域与Component区域的并集
+    private final Rect mComponentDirtyRect = new Rect();
+    private final RectF mComponentDirtyRectF = new RectF();
+    private final int[] mPlacement = new int[2]; //AUTO方向计算出的Component位置
+    //调试用:下一帧需要刷新的区域以及上一帧刷新的像素数
+    private final Rect mFrameDirtyRect = new Rect();
+    private boolean frameDirtyFull;
+    private long lastFrameInvalidatedPixels;
+
+    //跟踪目标位置,目标滚动或者动画时只刷新移动前后的抠出区域
+    private final TargetTracker targetTracker = new TargetTracker();
+    private boolean trackingRegistered;
+    private boolean attached; //isAttachedToWindow需要API 19
+
+    //内存回调,显示期间注册
+    private final MemoryCallbacks mMemoryCallbacks = new MemoryCallbacks();
+    private boolean memoryCallbacksRegistered;
+    private boolean buffersReleased; //界面不可见时释放了缓存,下一次绘制时重新创建
+    private boolean lowMemory; //运行时内存不足,reset之前不再创建蒙层Bitmap
+    private boolean backdropReleased; //模糊背景被释放,下一次绘制后重新截取
+    private final Runnable mRecaptureBackdrop = new Runnable() {
+        @Override
+        public void run() {
+            invalidateBackdrop();
+        }
+    };
+    private final RectF mTrackDirtyRectF = new RectF();
+    private final Rect mTrackDirtyRect = new Rect();
+    //已经添加到蒙版上的Component
+    private final List<GuideComponent> components = new ArrayList<>();
+
+    //等待显示的Component,在同一次布局回调中统一reset、添加并显示蒙版
+    private final List<GuideComponent> pendingComponents = new ArrayList<>();
+    private final LayoutScheduler layoutScheduler = new LayoutScheduler();
+    private View scheduledView; //注册了布局监听的View
 
     /**
      * 被填上蒙版的根View
@@ -37,17 +119,45 @@ public class GuideMaskView extends RelativeLayout {
      * 用来显示的不被遮盖的View
      */
     protected View targetView;
+    /**
+     * 所有不被遮盖的目标,第一个为{@link #targetView}对应的主目标
+     */
+    protected final List<GuideTarget> targets = new ArrayList<>();
 
 
     //可配置属性
     protected int maskColor = 0x66000000;//默认蒙层颜色
-    protected float targetRadius = 5;  //圆角矩形显示时的Radius
-    protected float targetPadding = 1; //圆角矩形(圆形/椭圆形)显示时的边距Padding
-    protected float roundRadius = 0; //圆形显示时候的半径
-    protected float ovalXRadius = 0; //椭圆形时x半径
-    protected float ovalYRadius = 0; //椭圆形时y半径
-    protected TargetShape targetShape = TargetShape.Round_Rectangle; //TargetView显示的形状
     protected boolean canComponentCoverTarget = true; //添加的Component是否可以覆盖住TargetView
+    protected boolean trackTargets = false; //是否在每帧绘制前跟踪目标位置
+    protected AttachMode attachMode = AttachMode.CHILD; //蒙版显示的方式
+    protected TouchPolicy touchPolicy = TouchPolicy.PASS_THROUGH_CUTOUT; //蒙版的触摸处理方式
+    protected boolean dismissOnOutsideTap; //点击抠出区域以外时是否移除蒙版
+    private OnOutsideTapListener outsideTapListener;
+    private final int touchSlop;
+    //当前手势的按下位置,以及是否交给蒙版下面的View
+    private float mDownX;
+    private float mDownY;
+    private boolean tapCandidate;
+    private boolean overlayAttached; //是否已经添加到rootView的浮层中
+    protected RenderMode renderMode = defaultRenderMode(); //蒙层绘制方式
+    protected MaskBufferFormat maskBufferFormat = MaskBufferFormat.ARGB_8888; //蒙层Bitmap的格式
+    private GuideMetricsListener metricsListener; //性能指标回调,为null时不计时
+    private boolean debugOverlay; //调试用,是否绘制各个区域的边框
+    private Paint mDebugPaint; //调试边框Paint,第一次绘制时创建
+    protected float maskBufferScale = 1f; //蒙层Bitmap相对蒙版的缩放比例
+    protected float featherRadius; //抠出区域边缘的羽化半径,0为不羽化
+    protected float backdropBlurRadius; //模糊背景的半径,0为不模糊背景只绘制maskColor
+
+    //羽化边缘,每个目标的纹理只在形状或尺寸变化时重新生成
+    private final Paint mFeatherPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    //显示时截取一次的模糊背景
+    private Bitmap mBackdropBitmap;
+    private Canvas mBackdropCanvas;
+    private int[] mBackdropPixels;
+    private int[] mBackdropScratch;
+    private final Paint mBackdropPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final RectF mBackdropDstRectF = new RectF();
+    private boolean capturingBackdrop; //截取背景时不绘制自己
 
 
     /**
@@ -59,11 +169,88 @@ public class GuideMaskView extends RelativeLayout {
         Oval //椭圆
     }
 
+    /**
+     * 蒙层的绘制方式
+     */
+    public enum RenderMode {
+        AUTO, //根据API版本以及是否硬件加速自动选择开销最小且结果正确的方式
+        BITMAP, //绘制到全屏离屏Bitmap后再绘制到Canvas上(每个蒙层占用 宽*高*4 字节)
+        HARDWARE_LAYER, //saveLayer后在图层上绘制蒙层并用CLEAR擦除目标,硬件加速下图层由GPU分配
+        CLIP_PATH //直接在Canvas上clip掉目标区域后绘制蒙层,不分配离屏Bitmap
+    }
+
+    /**
+     * 蒙版显示的方式
+     */
+    public enum AttachMode {
+        CHILD, //作为rootView的最后一个子View,显示和隐藏时rootView会重新布局
+        OVERLAY //API 18以上添加到rootView的ViewGroupOverlay中,不影响rootView的布局,浮层不接收触摸事件,低版本使用CHILD
+    }
+
+    /**
+     * 蒙版的触摸处理方式,Component总是优先处理触摸;{@link AttachMode#OVERLAY}下蒙版不接收触摸
+     */
+    public enum TouchPolicy {
+        PASS_THROUGH, //不拦截,所有触摸交给蒙版下面的View
+        PASS_THROUGH_CUTOUT, //抠出区域内的触摸交给下面的View,其余区域拦截
+        BLOCK //拦截所有触摸
+    }
+
+    /**
+     * 点击抠出区域以外的回调
+     */
+    public interface OnOutsideTapListener {
+        void onOutsideTap(GuideMaskView maskView);
+    }
+
+    /**
+     * {@link RenderMode#BITMAP}下蒙层Bitmap的格式
+     */
+    public enum MaskBufferFormat {
+        ARGB_8888, //直接保存蒙层颜色,每像素4字节
+        ALPHA_8 //只保存蒙层覆盖范围,每像素1字节,绘制时用maskColor着色
+    }
+
+    /**
+     * 默认绘制方式
+     */
+    public static RenderMode defaultRenderMode() {
+        return RenderMode.AUTO;
+    }
+
+    /**
+     * 计算当前Canvas下实际使用的绘制方式:
+     * 硬件加速下clipPath在API 18以后才支持,之前的版本使用{@link RenderMode#HARDWARE_LAYER};
+     * 其余情况使用{@link RenderMode#CLIP_PATH},不需要任何离屏缓存
+     */
+    static RenderMode resolveRenderMode(RenderMode renderMode, boolean hasBitmap, boolean hardwareAccelerated) {
+        if (renderMode == RenderMode.BITMAP && hasBitmap) {
+            return RenderMode.BITMAP;
+        }
+        if (renderMode == RenderMode.AUTO || renderMode == RenderMode.BITMAP) {
+            if (hardwareAccelerated && Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) {
+                return RenderMode.HARDWARE_LAYER;
+            }
+            return RenderMode.CLIP_PATH;
+        }
+        return renderMode;
+    }
+
 
     public GuideMaskView(Context context, View targetView, ViewGroup rootView) {
         super(context);
+        //设置抠出显示Paint
+        mEraserPaint.setColor(0xFFFFFFFF);
+        mEraserPaint.setXfermode(CLEAR_XFERMODE);
+        mAlphaMaskPaint.setXfermode(DST_OUT_XFERMODE);
+        mFeatherPaint.setXfermode(DST_OUT_XFERMODE);
+        touchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        MaskBitmapPool.init(context);
         this.rootView = rootView;
         this.targetView = targetView;
+        GuideTarget primaryTarget = new GuideTarget(targetView);
+        primaryTarget.maskView = this;
+        targets.add(primaryTarget);
         init(targetView, rootView);
     }
 
@@ -72,45 +259,212 @@ public class GuideMaskView extends RelativeLayout {
      * 重新设置rootView与targetView绘制区域
      */
     public void reset() {
+        lowMemory = false;
+        if (metricsListener == null) {
+            init(targetView, rootView);
+            return;
+        }
+        long start = System.nanoTime();
         init(targetView, rootView);
+        metricsListener.onReset(this, System.nanoTime() - start);
     }
 
     private void init(View targetView, ViewGroup rootView) {
         // mask以及Target的位置以及距离
         rootView.getHitRect(maskRect);
-        Log.e(TAG, "maskRect = " + maskRect.toString());
-        if (targetView != null) {
-            Rect rect = new Rect();
-            targetView.getHitRect(rect);
-            targetViewRectF = new RectF(rect);
-            Log.e(TAG, "targetViewRectF = " + targetViewRectF.toString());
+        for (int i = 0; i < targets.size(); i++) {
+            targets.get(i).updateRect();
         }
-
+        if (GuideDiagnostics.ENABLED && GuideDiagnostics.isLogging()) {
+            dumpGeometry();
+        }
+        invalidateMask();
 
         setWillNotDraw(false);
+        initBuffers();
+    }
 
-        if (maskRect.width() > 0) { //蒙层绘制完毕
+    /**
+     * 根据{@link #renderMode}创建或释放蒙层Bitmap
+     */
+    private void initBuffers() {
+        buffersReleased = false;
+        if (renderMode != RenderMode.BITMAP || lowMemory) {
+            releaseBuffers();
+            return;
+        }
+        if (maskRect.width() > 0 && maskRect.height() > 0) { //蒙层绘制完毕
+            int width = bufferSize(maskRect.width(), maskBufferScale);
+            int height = bufferSize(maskRect.height(), maskBufferScale);
+            Bitmap.Config config = bufferConfig(maskBufferFormat, backdropBlurRadius);
+            mMaskDstRectF.set(0, 0, maskRect.width(), maskRect.height());
+            if (mEraserBitmap != null && mEraserBitmap.getWidth() == width && mEraserBitmap.getHeight() == height
+                    && mEraserBitmap.getConfig() == config) {
+                return; //尺寸不变时直接复用
+            }
             //设置Bitmap（蒙层bitmap）
-            mEraserBitmap = Bitmap.createBitmap(maskRect.width(), maskRect.height(), Bitmap.Config.ARGB_8888);
-            mEraserCanvas = new Canvas(mEraserBitmap);
+            mEraserBitmap = MaskBitmapPool.resize(mEraserBitmap, width, height, config);
+            if (mEraserCanvas == null) {
+                mEraserCanvas = new Canvas(mEraserBitmap);
+            } else {
+                mEraserCanvas.setBitmap(mEraserBitmap);
+            }
+            maskDirty = true;
+            rasterFull = true;
+            if (metricsListener != null) {
+                metricsListener.onMaskBufferChanged(this, getMaskBufferBytes());
+            }
+        }
+    }
 
-            //设置抠出显示Paint
-            mEraserPaint = new Paint();
-            mEraserPaint.setColor(0xFFFFFFFF);
-            mEraserPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR)); //将目标区域擦除
-            mEraserPaint.setFlags(Paint.ANTI_ALIAS_FLAG);
+    /**
+     * 在后台线程按{@link #initBuffers()}实际会分配的尺寸以及格式提前创建蒙层Bitmap,
+     * 只有{@link RenderMode#BITMAP}使用蒙层Bitmap,其余绘制方式不做任何事
+     *
+     * @param width  蒙版的宽度
+     * @param height 蒙版的高度
+     */
+    static void prewarmBuffers(RenderMode renderMode, MaskBufferFormat format, float scale, float backdropBlurRadius,
+                               int width, int height) {
+        if (renderMode != RenderMode.BITMAP || width <= 0 || height <= 0) {
+            return;
         }
+        MaskBitmapPool.prewarm(bufferSize(width, scale), bufferSize(height, scale), bufferConfig(format, backdropBlurRadius));
+    }
+
+    private static int bufferSize(int size, float scale) {
+        return Math.max(1, Math.round(size * scale));
+    }
+
+    /**
+     * 低内存设备上没有模糊背景时使用ALPHA_8,绘制结果相同
+     */
+    private static Bitmap.Config bufferConfig(MaskBufferFormat format, float backdropBlurRadius) {
+        boolean alphaOnly = format == MaskBufferFormat.ALPHA_8
+                || (MaskBitmapPool.isLowRamDevice() && backdropBlurRadius == 0);
+        return alphaOnly ? Bitmap.Config.ALPHA_8 : Bitmap.Config.ARGB_8888;
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        long start = metricsListener == null ? 0 : System.nanoTime();
         setMeasuredDimension(maskRect.width(), maskRect.height());
+        for (int i = 0; i < components.size(); i++) {
+            measureComponent(components.get(i).attachedView);
+        }
+        if (metricsListener != null) {
+            metricsListener.onMeasure(this, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        //每个Component只按目标位置摆放一次
+        for (int i = 0; i < components.size(); i++) {
+            positionComponent(components.get(i));
+        }
+    }
+
+    @Override
+    protected MarginLayoutParams generateDefaultLayoutParams() {
+        return new MarginLayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    public MarginLayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new MarginLayoutParams(getContext(), attrs);
+    }
+
+    @Override
+    protected MarginLayoutParams generateLayoutParams(LayoutParams p) {
+        if (p instanceof MarginLayoutParams) {
+            return new MarginLayoutParams((MarginLayoutParams) p);
+        }
+        return new MarginLayoutParams(p);
+    }
+
+    @Override
+    protected boolean checkLayoutParams(LayoutParams p) {
+        return p instanceof MarginLayoutParams;
+    }
+
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        return false;
+    }
+
+    /**
+     * 按{@link #touchPolicy}处理触摸,按下时用缓存的抠出形状判断是否交给下面的View,
+     * 返回false后同一手势的后续事件不会再分发给蒙版
+     */
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        //Component优先
+        boolean handled = super.dispatchTouchEvent(event);
+        if (handled || touchPolicy == TouchPolicy.PASS_THROUGH) {
+            tapCandidate = false;
+            return handled;
+        }
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                if (touchPolicy == TouchPolicy.PASS_THROUGH_CUTOUT && cutoutContains(event.getX(), event.getY())) {
+                    return false;
+                }
+                mDownX = event.getX();
+                mDownY = event.getY();
+                tapCandidate = true;
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (tapCandidate && (Math.abs(event.getX() - mDownX) > touchSlop || Math.abs(event.getY() - mDownY) > touchSlop)) {
+                    tapCandidate = false;
+                }
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+            case MotionEvent.ACTION_CANCEL:
+                tapCandidate = false;
+                break;
+            case MotionEvent.ACTION_UP:
+                if (tapCandidate) {
+                    tapCandidate = false;
+                    if (!cutoutContains(event.getX(), event.getY())) {
+                        performOutsideTap();
+                    }
+                }
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * 点(x,y)是否在任意一个目标的抠出区域内,切换动画中使用插值后的区域
+     */
+    boolean cutoutContains(float x, float y) {
+        if (transitionRunning) {
+            return CutoutShape.Geometry.roundRectContains(mTransitionRectF, mTransitionRx, mTransitionRy, x, y);
+        }
+        for (int i = 0; i < targets.size(); i++) {
+            if (targets.get(i).cutoutContains(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void performOutsideTap() {
+        if (outsideTapListener != null) {
+            outsideTapListener.onOutsideTap(this);
+        }
+        if (dismissOnOutsideTap) {
+            dismiss();
+        }
     }
 
 
     @Override
     protected void onDraw(Canvas canvas) {
+        lastFrameInvalidatedPixels = getInvalidatedPixels();
+        frameDirtyFull = false;
+        mFrameDirtyRect.setEmpty();
         if (canComponentCoverTarget) {   //优先设置属性是否遮盖住
             drawMask(canvas);
             //最后再去绘制其他View
@@ -123,50 +477,673 @@ public class GuideMaskView extends RelativeLayout {
     }
 
     private void drawMask(Canvas canvas) {
-        //绘制蒙层
-        mEraserBitmap.eraseColor(Color.TRANSPARENT);
-        mEraserCanvas.drawColor(maskColor);
-
-        //擦除目标
-        switch (targetShape) {
-            case Round_Rectangle:
-                RectF rectF = new RectF(targetViewRectF.left - targetPadding, targetViewRectF.top - targetPadding, targetViewRectF.right + targetPadding, targetViewRectF.bottom + targetPadding);
-                mEraserCanvas.drawRoundRect(rectF, targetRadius, targetRadius, mEraserPaint);
-                break;
-            case Round:
-                if (roundRadius > 0) {
-                    mEraserCanvas.drawCircle(targetViewRectF.centerX(), targetViewRectF.centerY(), roundRadius, mEraserPaint);
-                } else {
-                    //计算斜边以及Padding
-                    float radius = ((float) Math.sqrt(targetViewRectF.height() * targetViewRectF.height() + targetViewRectF.width() * targetViewRectF.width()) / 2) + targetPadding;
-                    mEraserCanvas.drawCircle(targetViewRectF.centerX(), targetViewRectF.centerY(), radius, mEraserPaint);
-                }
-                break;
-            case Oval:
-                if (ovalXRadius > 0 && ovalYRadius > 0) {
-                    RectF ovalF1 = new RectF(targetViewRectF.centerX() - ovalXRadius, targetViewRectF.centerY() - ovalYRadius, targetViewRectF.centerX() + ovalXRadius, targetViewRectF.centerY() + ovalYRadius);
-                    mEraserCanvas.drawOval(ovalF1, mEraserPaint);
-                } else {
-                    RectF ovalF1 = new RectF(targetViewRectF.left - targetPadding, targetViewRectF.top - targetPadding, targetViewRectF.right + targetPadding, targetViewRectF.bottom + targetPadding);
-                    mEraserCanvas.drawOval(ovalF1, mEraserPaint);
+        if (metricsListener == null) {
+            renderMask(canvas);
+            return;
+        }
+        long start = System.nanoTime();
+        renderMask(canvas);
+        metricsListener.onDrawMask(this, resolvedRenderMode, System.nanoTime() - start);
+    }
+
+    private void renderMask(Canvas canvas) {
+        if (buffersReleased) {
+            //内存回调中释放的缓存在重新显示时创建
+            initBuffers();
+        }
+        if (backdropReleased) {
+            backdropReleased = false;
+            post(mRecaptureBackdrop);
+        }
+        boolean rebuild = maskDirty;
+        if (rebuild) {
+            buildCutoutPath();
+            maskDirty = false;
+        }
+        resolvedRenderMode = resolveRenderMode(renderMode, mEraserBitmap != null, canvas.isHardwareAccelerated());
+        if (resolvedRenderMode == RenderMode.CLIP_PATH && (hasAlphaMask || isFeathering())) {
+            //clip无法按透明度抠出,改为在图层上擦除
+            resolvedRenderMode = RenderMode.HARDWARE_LAYER;
+        }
+        if (resolvedRenderMode == RenderMode.BITMAP && mBackdropBitmap != null && mEraserBitmap.getConfig() == Bitmap.Config.ALPHA_8) {
+            //ALPHA_8无法保存模糊背景的颜色
+            resolvedRenderMode = RenderMode.HARDWARE_LAYER;
+        }
+        if (resolvedRenderMode == RenderMode.CLIP_PATH) {
+            //不经过离屏Bitmap,clip掉目标区域后直接绘制蒙层
+            canvas.save();
+            CanvasCompat.clipOutPath(canvas, mCutoutPath);
+            fillMask(canvas);
+            canvas.restore();
+            return;
+        }
+        if (resolvedRenderMode == RenderMode.HARDWARE_LAYER) {
+            //在图层上绘制蒙层并擦除目标,再合成到Canvas上
+            int count = CanvasCompat.saveLayer(canvas, 0, 0, maskRect.width(), maskRect.height(), null);
+            fillMask(canvas);
+            eraseCutouts(canvas);
+            canvas.restoreToCount(count);
+            return;
+        }
+
+        if (rebuild) {
+            //绘制蒙层,只有在几何或颜色变化后才重新绘制,其余帧直接复用缓存
+            boolean alphaOnly = mEraserBitmap.getConfig() == Bitmap.Config.ALPHA_8;
+            boolean backdrop = mBackdropBitmap != null;
+            int rasterColor = alphaOnly ? Color.BLACK : backdrop ? Color.TRANSPARENT : maskColor;
+            mEraserCanvas.save();
+            mEraserCanvas.scale(maskBufferScale, maskBufferScale);
+            if (rasterFull) {
+                mEraserBitmap.eraseColor(rasterColor);
+            } else {
+                //只重新绘制变化的区域
+                mEraserCanvas.clipRect(mRasterRect);
+                mEraserCanvas.drawColor(rasterColor, PorterDuff.Mode.SRC);
+            }
+            if (backdrop) {
+                fillMask(mEraserCanvas);
+            }
+            //擦除目标
+            eraseCutouts(mEraserCanvas);
+            mEraserCanvas.restore();
+            //ALPHA_8只保存覆盖范围,绘制时由Paint的颜色着色
+            mBitmapPaint.setColor(alphaOnly ? maskColor : Color.BLACK);
+            rasterFull = false;
+            mRasterRect.setEmpty();
+        }
+
+        //将目标绘制在View上面
+        if (maskBufferScale == 1f) {
+            canvas.drawBitmap(mEraserBitmap, 0, 0, mBitmapPaint);
+        } else {
+            //缩小的蒙层Bitmap双线性放大到整个蒙版
+            canvas.drawBitmap(mEraserBitmap, null, mMaskDstRectF, mBitmapPaint);
+        }
+    }
+
+    /**
+     * 绘制蒙层内容,有模糊背景时先绘制背景再叠加maskColor
+     */
+    private void fillMask(Canvas canvas) {
+        if (mBackdropBitmap != null) {
+            canvas.drawBitmap(mBackdropBitmap, null, mBackdropDstRectF, mBackdropPaint);
+        }
+        canvas.drawColor(maskColor);
+    }
+
+    /**
+     * 擦除所有目标,羽化时绘制每个目标缓存的羽化纹理,否则直接擦除合并后的Path
+     */
+    private void eraseCutouts(Canvas canvas) {
+        if (isFeathering()) {
+            for (int i = 0; i < targets.size(); i++) {
+                GuideTarget target = targets.get(i);
+                if (target.cutout.alphaMask != null) {
+                    continue;
                 }
-                break;
+                Bitmap texture = target.getFeatherBitmap(featherRadius);
+                int padding = target.feather.padding;
+                canvas.drawBitmap(texture, target.cutoutRectF.left - padding, target.cutoutRectF.top - padding, mFeatherPaint);
+            }
+        } else {
+            canvas.drawPath(mCutoutPath, mEraserPaint);
+        }
+        eraseAlphaMasks(canvas);
+    }
+
+    /**
+     * 切换动画中只擦除插值后的区域,不羽化
+     */
+    private boolean isFeathering() {
+        return featherRadius > 0 && !transitionRunning;
+    }
+
+    /**
+     * 按Drawable透明度擦除目标,Drawable绘制在DST_OUT图层上再合成
+     */
+    private void eraseAlphaMasks(Canvas canvas) {
+        if (!hasAlphaMask) {
+            return;
+        }
+        for (int i = 0; i < targets.size(); i++) {
+            CutoutShape.Geometry cutout = targets.get(i).cutout;
+            if (cutout.alphaMask == null) {
+                continue;
+            }
+            int count = CanvasCompat.saveLayer(canvas, cutout.bounds, mAlphaMaskPaint);
+            canvas.translate(cutout.maskLeft, cutout.maskTop);
+            cutout.alphaMask.draw(canvas);
+            canvas.restoreToCount(count);
+        }
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        if (GuideDiagnostics.ENABLED && debugOverlay) {
+            drawDebugOverlay(canvas);
+        }
+    }
+
+    /**
+     * 调试用,在最上层绘制目标区域(红)、抠出区域(绿)以及Component区域(蓝)
+     */
+    private void drawDebugOverlay(Canvas canvas) {
+        if (mDebugPaint == null) {
+            mDebugPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mDebugPaint.setStyle(Paint.Style.STROKE);
+            mDebugPaint.setStrokeWidth(2);
+        }
+        for (int i = 0; i < targets.size(); i++) {
+            GuideTarget target = targets.get(i);
+            mDebugPaint.setColor(Color.RED);
+            canvas.drawRect(target.targetRectF, mDebugPaint);
+            mDebugPaint.setColor(Color.GREEN);
+            canvas.drawRect(target.cutoutRectF, mDebugPaint);
+        }
+        mDebugPaint.setColor(Color.BLUE);
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            canvas.drawRect(child.getLeft(), child.getTop(), child.getRight(), child.getBottom(), mDebugPaint);
+        }
+    }
+
+    /**
+     * 输出蒙版以及所有目标的区域
+     */
+    private void dumpGeometry() {
+        GuideDiagnostics.log(TAG, "maskRect = " + maskRect.toShortString() + " renderMode = " + renderMode);
+        for (int i = 0; i < targets.size(); i++) {
+            GuideTarget target = targets.get(i);
+            target.updateCutout();
+            GuideDiagnostics.log(TAG, "target[" + i + "] " + target.getCutoutShape() + " rect = " + target.targetRectF.toShortString()
+                    + " cutout = " + target.cutoutRectF.toShortString() + " rx = " + target.cutoutRx + " ry = " + target.cutoutRy);
+        }
+    }
+
+    /**
+     * 将所有目标的抠出区域合并到同一个Path中,一次完成擦除
+     */
+    private void buildCutoutPath() {
+        mCutoutPath.rewind();
+        hasAlphaMask = false;
+        if (transitionRunning) {
+            //切换动画中只绘制插值后的区域
+            mCutoutPath.addRoundRect(mTransitionRectF, mTransitionRx, mTransitionRy, Path.Direction.CW);
+            return;
+        }
+        for (int i = 0; i < targets.size(); i++) {
+            GuideTarget target = targets.get(i);
+            target.addCutout(mCutoutPath);
+            hasAlphaMask |= target.cutout.alphaMask != null;
+        }
+    }
+
+    /**
+     * 标记蒙层需要重新计算并刷新
+     */
+    void invalidateMask() {
+        maskDirty = true;
+        rasterFull = true;
+        frameDirtyFull = true;
+        invalidate();
+        if (metricsListener != null) {
+            metricsListener.onInvalidate(this, true);
+        }
+    }
+
+    /**
+     * 标记蒙层中dirty区域需要重新计算,只刷新该区域
+     */
+    private void invalidateMask(Rect dirty) {
+        maskDirty = true;
+        if (featherRadius > 0) {
+            //羽化边缘超出抠出区域
+            int padding = FeatherTexture.paddingFor(featherRadius);
+            dirty.inset(-padding, -padding);
+        }
+        if (!rasterFull) {
+            mRasterRect.union(dirty);
+        }
+        invalidateRegion(dirty);
+    }
+
+    /**
+     * 只刷新dirty区域,蒙层不需要重新绘制
+     */
+    private void invalidateRegion(Rect dirty) {
+        if (!frameDirtyFull) {
+            mFrameDirtyRect.union(dirty);
+        }
+        invalidate(dirty);
+        if (metricsListener != null) {
+            metricsListener.onInvalidate(this, false);
+        }
+    }
+
+    /**
+     * 调试用,自上一帧绘制之后由蒙版发起刷新的像素数
+     */
+    public long getInvalidatedPixels() {
+        if (frameDirtyFull) {
+            return (long) maskRect.width() * maskRect.height();
+        }
+        return (long) mFrameDirtyRect.width() * mFrameDirtyRect.height();
+    }
+
+    /**
+     * 调试用,上一帧绘制时由蒙版发起刷新的像素数
+     */
+    public long getLastFrameInvalidatedPixels() {
+        return lastFrameInvalidatedPixels;
+    }
+
+    /**
+     * 抠出区域从当前主目标过渡到newTargets中的第一个目标,矩形、圆角以及形状(圆角矩形/圆形/椭圆)同时插值,
+     * 每帧只刷新前后两帧抠出区域的并集,其余目标在动画结束后显示
+     *
+     * @param newTargets 新的目标,第一个作为主目标
+     * @param duration   动画时长
+     */
+    public void animateToTargets(List<GuideTarget> newTargets, long duration) {
+        beginTransition(newTargets);
+        if (mTransitionAnimator == null) {
+            mTransitionAnimator = ValueAnimator.ofFloat(0f, 1f);
+            TransitionListener listener = new TransitionListener();
+            mTransitionAnimator.addUpdateListener(listener);
+            mTransitionAnimator.addListener(listener);
+        }
+        mTransitionAnimator.setDuration(duration);
+        mTransitionAnimator.start();
+    }
+
+    /**
+     * 记录起始以及结束的抠出区域,并替换为新的目标
+     */
+    void beginTransition(List<GuideTarget> newTargets) {
+        if (transitionRunning) {
+            //从当前插值位置继续过渡
+            mFromRectF.set(mTransitionRectF);
+            mFromRx = mTransitionRx;
+            mFromRy = mTransitionRy;
+            cancelTransition();
+        } else {
+            GuideTarget from = targets.get(0);
+            from.updateCutout();
+            mFromRectF.set(from.cutoutRectF);
+            mFromRx = from.cutoutRx;
+            mFromRy = from.cutoutRy;
+            //第一帧需要同时刷新所有旧目标的区域
+            mLastTransitionBounds.setEmpty();
+            for (int i = 0; i < targets.size(); i++) {
+                GuideTarget target = targets.get(i);
+                target.updateCutout();
+                mLastTransitionBounds.union(target.cutoutRectF);
+            }
+        }
+        replaceTargets(newTargets);
+        GuideTarget to = targets.get(0);
+        to.updateCutout();
+        mToRectF.set(to.cutoutRectF);
+        mToRx = to.cutoutRx;
+        mToRy = to.cutoutRy;
+        transitionRunning = true;
+    }
+
+    /**
+     * 按插值进度计算抠出区域
+     */
+    void applyTransitionFraction(float fraction) {
+        mTransitionRectF.set(lerp(mFromRectF.left, mToRectF.left, fraction),
+                lerp(mFromRectF.top, mToRectF.top, fraction),
+                lerp(mFromRectF.right, mToRectF.right, fraction),
+                lerp(mFromRectF.bottom, mToRectF.bottom, fraction));
+        mTransitionRx = lerp(mFromRx, mToRx, fraction);
+        mTransitionRy = lerp(mFromRy, mToRy, fraction);
+
+        //刷新区域为上一帧与这一帧抠出区域的并集
+        mTransitionBounds.set(mLastTransitionBounds);
+        mTransitionBounds.union(mTransitionRectF);
+        mLastTransitionBounds.set(mTransitionRectF);
+        invalidateTransitionBounds();
+    }
+
+    private void finishTransition() {
+        transitionRunning = false;
+        //动画结束后显示所有目标
+        mTransitionBounds.set(mLastTransitionBounds);
+        for (int i = 0; i < targets.size(); i++) {
+            GuideTarget target = targets.get(i);
+            target.updateCutout();
+            mTransitionBounds.union(target.cutoutRectF);
+        }
+        invalidateTransitionBounds();
+    }
+
+    private void cancelTransition() {
+        if (mTransitionAnimator != null && mTransitionAnimator.isRunning()) {
+            transitionCanceled = true;
+            mTransitionAnimator.cancel();
+            transitionCanceled = false;
+        }
+        transitionRunning = false;
+    }
+
+    private void invalidateTransitionBounds() {
+        mTransitionBounds.roundOut(mTransitionDirtyRect);
+        mTransitionDirtyRect.inset(-DIRTY_MARGIN, -DIRTY_MARGIN);
+        invalidateMask(mTransitionDirtyRect);
+    }
+
+    private static float lerp(float from, float to, float fraction) {
+        return from + (to - from) * fraction;
+    }
+
+    private class TransitionListener extends AnimatorListenerAdapter implements ValueAnimator.AnimatorUpdateListener {
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            applyTransitionFraction(animation.getAnimatedFraction());
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            if (!transitionCanceled) {
+                finishTransition();
+            }
+        }
+    }
+
+    /**
+     * 释放蒙层Bitmap,放回{@link MaskBitmapPool}供其他蒙版复用
+     */
+    private void releaseBuffers() {
+        releaseBuffers(false);
+    }
+
+    /**
+     * @param recycle 直接回收而不放回{@link MaskBitmapPool},内存不足时使用,池的清理由池自己注册的回调负责
+     */
+    private void releaseBuffers(boolean recycle) {
+        if (mEraserCanvas != null) {
+            mEraserCanvas.setBitmap(null);
+        }
+        if (mEraserBitmap == null) {
+            return;
+        }
+        if (recycle) {
+            mEraserBitmap.recycle();
+        } else {
+            MaskBitmapPool.release(mEraserBitmap);
+        }
+        mEraserBitmap = null;
+        if (metricsListener != null) {
+            metricsListener.onMaskBufferChanged(this, 0);
+        }
+    }
+
+    /**
+     * @return 上一次绘制时实际使用的绘制方式,还没有绘制时为null
+     */
+    public RenderMode getResolvedRenderMode() {
+        return resolvedRenderMode;
+    }
+
+    /**
+     * @return 当前蒙层离屏Bitmap占用的字节数, 只有{@link RenderMode#BITMAP}下不为0
+     */
+    public int getMaskBufferBytes() {
+        return mEraserBitmap == null ? 0 : mEraserBitmap.getRowBytes() * mEraserBitmap.getHeight();
+    }
+
+    /**
+     * @return 模糊背景以及羽化纹理占用的字节数
+     */
+    public long getEffectBufferBytes() {
+        long bytes = mBackdropBitmap == null ? 0 : MaskBitmapPool.byteCount(mBackdropBitmap);
+        for (int i = 0; i < targets.size(); i++) {
+            FeatherTexture feather = targets.get(i).feather;
+            if (feather != null) {
+                bytes += feather.getByteCount();
+            }
+        }
+        return bytes;
+    }
+
+    Bitmap getMaskBitmap() {
+        return mEraserBitmap;
+    }
+
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        //重新显示时从MaskBitmapPool中取回蒙层Bitmap
+        initBuffers();
+        attached = true;
+        updateTracking();
+        registerMemoryCallbacks(true);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        clearFocus();
+        releaseBuffers();
+        attached = false;
+        updateTracking();
+        registerMemoryCallbacks(false);
+    }
+
+    private void registerMemoryCallbacks(boolean register) {
+        if (register == memoryCallbacksRegistered) {
+            return;
+        }
+        Context appContext = getContext().getApplicationContext();
+        if (appContext == null) {
+            appContext = getContext();
+        }
+        if (register) {
+            appContext.registerComponentCallbacks(mMemoryCallbacks);
+        } else {
+            appContext.unregisterComponentCallbacks(mMemoryCallbacks);
+        }
+        memoryCallbacksRegistered = register;
+    }
+
+    /**
+     * 界面不可见时释放所有缓存,下一次绘制时重新创建;
+     * 仍然可见但内存不足时改为不使用离屏Bitmap的方式绘制,直到下一次{@link #reset()}.
+     * 只处理自己持有的缓存,{@link MaskBitmapPool}由它在init时注册的回调清理
+     */
+    void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            releaseBuffers(true);
+            releaseFeathers();
+            mBackdropPixels = null;
+            mBackdropScratch = null;
+            buffersReleased = true;
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE && mBackdropBitmap != null) {
+                releaseBackdrop();
+                backdropReleased = true;
+            }
+            invalidateMask();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            releaseBuffers(true);
+            releaseFeathers();
+            lowMemory = true;
+            invalidateMask();
+        }
+    }
+
+    /**
+     * 结束引导:取消等待中的显示,移除蒙版、停止动画以及跟踪,并立即释放蒙层Bitmap、模糊背景以及羽化纹理,
+     * 低内存设备上同时回收{@link MaskBitmapPool}
+     */
+    public void dismiss() {
+        //还没有布局时等待显示的Component不再显示
+        pendingComponents.clear();
+        cancelSchedule();
+        cancelTransition();
+        detachFromRoot();
+        releaseBuffers();
+        buffersReleased = false;
+        backdropReleased = false;
+        removeCallbacks(mRecaptureBackdrop);
+        registerMemoryCallbacks(false);
+        if (MaskBitmapPool.isLowRamDevice()) {
+            MaskBitmapPool.clear();
+        }
+    }
+
+    private class MemoryCallbacks implements ComponentCallbacks2 {
+        @Override
+        public void onTrimMemory(int level) {
+            GuideMaskView.this.onTrimMemory(level);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            GuideMaskView.this.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        }
+    }
+
+    /**
+     * 根据{@link #trackTargets}以及是否显示注册或者移除绘制前监听
+     */
+    private void updateTracking() {
+        boolean register = trackTargets && attached;
+        if (register == trackingRegistered) {
+            return;
+        }
+        ViewTreeObserver observer = getViewTreeObserver();
+        if (register) {
+            observer.addOnGlobalLayoutListener(targetTracker);
+            observer.addOnPreDrawListener(targetTracker);
+        } else {
+            observer.removeOnGlobalLayoutListener(targetTracker);
+            observer.removeOnPreDrawListener(targetTracker);
+        }
+        trackingRegistered = register;
+    }
+
+    /**
+     * 重新获取所有目标的位置,只有位置变化的目标才刷新移动前后的抠出区域,
+     * 依附的Component通过平移跟随,蒙层Bitmap以及Component布局都不变
+     *
+     * @return 是否有目标移动
+     */
+    boolean trackTargets() {
+        boolean moved = false;
+        for (int i = 0; i < targets.size(); i++) {
+            GuideTarget target = targets.get(i);
+            target.updateCutout();
+            mTrackDirtyRectF.set(target.cutoutRectF);
+            if (!target.trackRect()) {
+                continue;
+            }
+            moved = true;
+            target.updateCutout();
+            mTrackDirtyRectF.union(target.cutoutRectF);
+            mTrackDirtyRectF.roundOut(mTrackDirtyRect);
+            mTrackDirtyRect.inset(-DIRTY_MARGIN, -DIRTY_MARGIN);
+            invalidateMask(mTrackDirtyRect);
+        }
+        if (moved) {
+            for (int i = 0; i < components.size(); i++) {
+                GuideComponent component = components.get(i);
+                RectF targetRectF = getTarget(component.targetIndex).targetRectF;
+                component.attachedView.setTranslationX(targetRectF.left - component.anchorX);
+                component.attachedView.setTranslationY(targetRectF.top - component.anchorY);
+            }
+        }
+        return moved;
+    }
+
+    private class TargetTracker implements ViewTreeObserver.OnGlobalLayoutListener, ViewTreeObserver.OnPreDrawListener {
+        @Override
+        public void onGlobalLayout() {
+            //布局变化后父View链以及位置可能变化,滚动和平移在每次跟踪时读取
+            for (int i = 0; i < targets.size(); i++) {
+                targets.get(i).invalidateLocation();
+            }
+        }
+
+        @Override
+        public boolean onPreDraw() {
+            //在同一帧绘制前刷新,不会落后一帧
+            if (!transitionRunning) {
+                trackTargets();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 在TargetView布局完成后显示Component,同一个蒙版上的多个Component共用一次布局监听、
+     * 一次{@link #reset()}以及一次添加到rootView,重复调用不会重复添加
+     */
+    public void scheduleComponent(GuideComponent component) {
+        if (component.attachedView.getParent() == this || pendingComponents.contains(component)) {
+            return;
+        }
+        pendingComponents.add(component);
+        if (scheduledView != null) {
+            return;
+        }
+        scheduledView = targetView != null ? targetView : rootView;
+        if (scheduledView.getWidth() > 0 && !scheduledView.isLayoutRequested()) {
+            //已经布局完成,不会再收到布局回调
+            scheduledView.post(layoutScheduler);
+        } else {
+            scheduledView.getViewTreeObserver().addOnGlobalLayoutListener(layoutScheduler);
+        }
+    }
+
+    /**
+     * 显示所有等待中的Component
+     */
+    private void flushPendingComponents() {
+        if (scheduledView == null) {
+            return;
+        }
+        cancelSchedule();
+
+        //重新初始化
+        reset();
+        //添加AttachedView
+        for (int i = 0; i < pendingComponents.size(); i++) {
+            addComponent(pendingComponents.get(i));
+        }
+        pendingComponents.clear();
+        //Container添加蒙版并置于最高层显示
+        attachToRoot();
+    }
+
+    /**
+     * 移除布局监听以及等待中的显示
+     */
+    private void cancelSchedule() {
+        if (scheduledView == null) {
+            return;
         }
-
-        //将目标绘制在View上面
-        canvas.drawBitmap(mEraserBitmap, 0, 0, null);
+        scheduledView.getViewTreeObserver().removeOnGlobalLayoutListener(layoutScheduler);
+        scheduledView.removeCallbacks(layoutScheduler);
+        scheduledView = null;
     }
 
+    private class LayoutScheduler implements ViewTreeObserver.OnGlobalLayoutListener, Runnable {
+        @Override
+        public void onGlobalLayout() {
+            flushPendingComponents();
+        }
 
-    @Override
-    protected void onDetachedFromWindow() {
-        super.onDetachedFromWindow();
-        try {
-            clearFocus();
-            mEraserCanvas.setBitmap(null);
-            mEraserBitmap = null;
-        } catch (Exception e) {
-            e.printStackTrace();
+        @Override
+        public void run() {
+            flushPendingComponents();
         }
     }
 
@@ -174,13 +1151,69 @@ public class GuideMaskView extends RelativeLayout {
      * 添加绑定控件
      */
     public void addComponent(GuideComponent component) {
+        if (metricsListener == null) {
+            placeComponent(component);
+            return;
+        }
+        long start = System.nanoTime();
+        placeComponent(component);
+        metricsListener.onAddComponent(this, component, System.nanoTime() - start);
+    }
+
+    private void placeComponent(GuideComponent component) {
+        if (component.attachedView.getParent() == this) {
+            updateComponent(component);
+            return;
+        }
         //设置Component位置
-        RelativeLayout.LayoutParams lp = new RelativeLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
-        if (component.attachedView.getLayoutParams() != null) {
-            lp = (RelativeLayout.LayoutParams) component.attachedView.getLayoutParams();
+        LayoutParams params = component.attachedView.getLayoutParams();
+        MarginLayoutParams lp;
+        if (params == null) {
+            lp = generateDefaultLayoutParams();
+        } else if (checkLayoutParams(params)) {
+            lp = (MarginLayoutParams) params;
+        } else {
+            lp = generateLayoutParams(params);
+        }
+        component.attachedView.setLayoutParams(lp);
+        //不触发整个蒙版的requestLayout,直接测量并摆放Component,只刷新受影响的区域
+        addViewInLayout(component.attachedView, -1, lp, true);
+        components.add(component);
+        layoutComponent(component);
+        invalidateComponent(component, null);
+        if (GuideDiagnostics.ENABLED && GuideDiagnostics.isLogging()) {
+            View child = component.attachedView;
+            GuideDiagnostics.log(TAG, "addComponent " + component.componentDirection + " target = " + component.targetIndex
+                    + " bounds = [" + child.getLeft() + "," + child.getTop() + "][" + child.getRight() + "," + child.getBottom() + "]");
         }
+    }
+
+    /**
+     * Component的方向或者偏移变化后重新摆放,只刷新变化前后的区域
+     */
+    public void updateComponent(GuideComponent component) {
+        View child = component.attachedView;
+        if (child.getParent() != this) {
+            return;
+        }
+        mComponentDirtyRect.set(child.getLeft(), child.getTop(), child.getRight(), child.getBottom());
+        layoutComponent(component);
+        invalidateComponent(component, mComponentDirtyRect);
+    }
+
+    /**
+     * 根据{@link GuideComponent.ComponentDirection}、偏移以及测量后的大小计算Component的位置
+     */
+    private void applyComponentMargins(GuideComponent component, MarginLayoutParams lp) {
+        GuideTarget target = getTarget(component.targetIndex);
+        RectF targetViewRectF = target.targetRectF;
         lp.topMargin = 0;
         lp.leftMargin = 0;
+        //按目标当前位置重新摆放,去掉跟踪时的平移
+        component.anchorX = targetViewRectF.left;
+        component.anchorY = targetViewRectF.top;
+        component.attachedView.setTranslationX(0);
+        component.attachedView.setTranslationY(0);
         switch (component.componentDirection) {
             case LEFT_TOP:
                 lp.topMargin = (int) targetViewRectF.top - component.yOffset;
@@ -191,23 +1224,71 @@ public class GuideMaskView extends RelativeLayout {
                 lp.leftMargin = (int) targetViewRectF.left + component.xOffset;
                 break;
             case LEFT_BOTTOM:
-                lp.topMargin = (int) targetViewRectF.top + component.yOffset;
+                lp.topMargin = (int) targetViewRectF.bottom + component.yOffset;
                 lp.leftMargin = (int) targetViewRectF.left - component.xOffset;
                 break;
             case RIGHT_BOTTOM:
-                lp.topMargin = (int) targetViewRectF.top + component.yOffset;
+                lp.topMargin = (int) targetViewRectF.bottom + component.yOffset;
                 lp.leftMargin = (int) targetViewRectF.left + component.xOffset;
                 break;
+            case AUTO:
+                //避开抠出区域而不只是TargetView
+                target.updateCutout();
+                RectF cutout = target.cutoutRectF;
+                View child = component.attachedView;
+                boolean rtl = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1
+                        && getLayoutDirection() == LAYOUT_DIRECTION_RTL;
+                component.placedSide = ComponentPlacement.place(cutout.left, cutout.top, cutout.right, cutout.bottom,
+                        child.getMeasuredWidth(), child.getMeasuredHeight(), maskRect.width(), maskRect.height(),
+                        component.xOffset, component.yOffset, rtl, mPlacement);
+                lp.leftMargin = mPlacement[0];
+                lp.topMargin = mPlacement[1];
+                break;
             default:
                 break;
         }
+    }
 
-        Log.e(TAG, "addComponent topMargin = " + lp.topMargin);
-        Log.e(TAG, "addComponent leftMargin = " + lp.leftMargin);
-        component.attachedView.setLayoutParams(lp);
-        addView(component.attachedView);
-        requestLayout();
-        invalidate();
+    /**
+     * 直接测量一次,按测量后的大小计算位置并摆放Component
+     */
+    private void layoutComponent(GuideComponent component) {
+        measureComponent(component.attachedView);
+        positionComponent(component);
+    }
+
+    private void measureComponent(View child) {
+        measureChild(child, MeasureSpec.makeMeasureSpec(maskRect.width(), MeasureSpec.AT_MOST),
+                MeasureSpec.makeMeasureSpec(maskRect.height(), MeasureSpec.AT_MOST));
+    }
+
+    /**
+     * 按测量后的大小计算位置并摆放Component
+     */
+    private void positionComponent(GuideComponent component) {
+        View child = component.attachedView;
+        MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+        applyComponentMargins(component, lp);
+        int left = getPaddingLeft() + lp.leftMargin;
+        int top = getPaddingTop() + lp.topMargin;
+        child.layout(left, top, left + child.getMeasuredWidth(), top + child.getMeasuredHeight());
+    }
+
+    /**
+     * 刷新Component所依附目标的抠出区域、Component当前区域以及oldBounds的并集
+     */
+    private void invalidateComponent(GuideComponent component, Rect oldBounds) {
+        GuideTarget target = getTarget(component.targetIndex);
+        target.updateCutout();
+        mComponentDirtyRectF.set(target.cutoutRectF);
+        View child = component.attachedView;
+        mComponentDirtyRectF.union(child.getLeft(), child.getTop(), child.getRight(), child.getBottom());
+        if (oldBounds != null) {
+            mComponentDirtyRectF.union(oldBounds.left, oldBounds.top, oldBounds.right, oldBounds.bottom);
+        }
+        mComponentDirtyRectF.roundOut(mComponentDirtyRect);
+        mComponentDirtyRect.inset(-DIRTY_MARGIN, -DIRTY_MARGIN);
+        invalidateRegion(mComponentDirtyRect);
     }
 
 
@@ -225,59 +1306,442 @@ public class GuideMaskView extends RelativeLayout {
         return targetView;
     }
 
+    /**
+     * 添加一个不被遮盖的目标,所有目标在同一个蒙层中一次抠出
+     */
+    public void addTarget(GuideTarget target) {
+        target.maskView = this;
+        target.updateRect();
+        targets.add(target);
+        invalidateMask();
+    }
+
+    /**
+     * 替换所有不被遮盖的目标,蒙层Bitmap、Canvas以及Paint保持复用,只重新计算抠出区域
+     *
+     * @param newTargets 新的目标,第一个作为主目标
+     */
+    public void setTargets(List<GuideTarget> newTargets) {
+        cancelTransition();
+        replaceTargets(newTargets);
+        invalidateMask();
+    }
+
+    private void replaceTargets(List<GuideTarget> newTargets) {
+        if (newTargets.isEmpty()) {
+            throw new IllegalArgumentException("GuideMaskView needs at least one target");
+        }
+        for (int i = 0; i < targets.size(); i++) {
+            targets.get(i).maskView = null;
+        }
+        targets.clear();
+        for (int i = 0; i < newTargets.size(); i++) {
+            GuideTarget target = newTargets.get(i);
+            target.maskView = this;
+            target.updateRect();
+            targets.add(target);
+        }
+        targetView = targets.get(0).targetView;
+    }
+
+    /**
+     * 将蒙版添加到{@link #rootView}并置于最高层,已经添加过时不会重复添加
+     */
+    public void attachToRoot() {
+        if (attachMode == AttachMode.OVERLAY && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            if (!overlayAttached) {
+                rootView.getOverlay().add(this);
+                overlayAttached = true;
+            }
+            //浮层不参与rootView的布局,直接测量并摆放
+            measure(MeasureSpec.makeMeasureSpec(maskRect.width(), MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(maskRect.height(), MeasureSpec.EXACTLY));
+            layout(0, 0, maskRect.width(), maskRect.height());
+            captureBackdrop();
+            return;
+        }
+        if (getParent() == null) {
+            rootView.addView(this);
+        }
+        bringToFront();
+        captureBackdrop();
+    }
+
+    /**
+     * 从{@link #rootView}中移除蒙版
+     */
+    public void detachFromRoot() {
+        releaseEffects();
+        if (overlayAttached) {
+            rootView.getOverlay().remove(this);
+            overlayAttached = false;
+            return;
+        }
+        if (getParent() == rootView) {
+            rootView.removeView(this);
+        }
+    }
+
+    /**
+     * 截取rootView当前的内容,缩小{@link #BACKDROP_DOWNSAMPLE}倍后盒式模糊,作为蒙层背景一直复用,
+     * 耗时与缩小后的像素数成正比,与模糊半径无关
+     */
+    private void captureBackdrop() {
+        if (backdropBlurRadius <= 0 || maskRect.isEmpty()) {
+            return;
+        }
+        int width = Math.max(1, maskRect.width() / BACKDROP_DOWNSAMPLE);
+        int height = Math.max(1, maskRect.height() / BACKDROP_DOWNSAMPLE);
+        //背景尺寸与全屏蒙层不同,不放入MaskBitmapPool,避免改掉或挤掉池中的全屏Bitmap
+        if (mBackdropBitmap == null || mBackdropBitmap.getWidth() != width || mBackdropBitmap.getHeight() != height) {
+            if (mBackdropBitmap != null) {
+                mBackdropBitmap.recycle();
+            }
+            mBackdropBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        }
+        if (mBackdropCanvas == null) {
+            mBackdropCanvas = new Canvas(mBackdropBitmap);
+        } else {
+            mBackdropCanvas.setBitmap(mBackdropBitmap);
+        }
+        mBackdropBitmap.eraseColor(Color.TRANSPARENT);
+        mBackdropCanvas.save();
+        mBackdropCanvas.scale((float) width / maskRect.width(), (float) height / maskRect.height());
+        mBackdropCanvas.translate(-rootView.getScrollX(), -rootView.getScrollY());
+        capturingBackdrop = true;
+        try {
+            rootView.draw(mBackdropCanvas);
+        } finally {
+            capturingBackdrop = false;
+        }
+        mBackdropCanvas.restore();
+
+        int size = width * height;
+        if (mBackdropPixels == null || mBackdropPixels.length != size) {
+            mBackdropPixels = new int[size];
+            mBackdropScratch = new int[size];
+        }
+        mBackdropBitmap.getPixels(mBackdropPixels, 0, width, 0, 0, width, height);
+        int radius = Math.max(1, Math.round(backdropBlurRadius / BACKDROP_DOWNSAMPLE));
+        BoxBlur.blur(mBackdropPixels, mBackdropScratch, width, height, radius, BACKDROP_BLUR_ITERATIONS);
+        mBackdropBitmap.setPixels(mBackdropPixels, 0, width, 0, 0, width, height);
+        mBackdropDstRectF.set(0, 0, maskRect.width(), maskRect.height());
+        invalidateMask();
+    }
+
+    /**
+     * 蒙版下面的内容发生变化后重新截取模糊背景
+     */
+    public void invalidateBackdrop() {
+        if (getParent() != null || overlayAttached) {
+            captureBackdrop();
+        }
+    }
+
+    private void releaseBackdrop() {
+        if (mBackdropCanvas != null) {
+            mBackdropCanvas.setBitmap(null);
+        }
+        if (mBackdropBitmap != null) {
+            mBackdropBitmap.recycle();
+            mBackdropBitmap = null;
+        }
+        mBackdropPixels = null;
+        mBackdropScratch = null;
+    }
+
+    /**
+     * 释放模糊背景以及羽化纹理,再次显示时重新生成
+     */
+    private void releaseEffects() {
+        releaseBackdrop();
+        releaseFeathers();
+    }
+
+    private void releaseFeathers() {
+        for (int i = 0; i < targets.size(); i++) {
+            targets.get(i).releaseFeather();
+        }
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (capturingBackdrop) {
+            return;
+        }
+        super.draw(canvas);
+    }
+
+    /**
+     * 移除不被遮盖的目标
+     */
+    public void removeTarget(GuideTarget target) {
+        if (targets.remove(target)) {
+            target.maskView = null;
+            invalidateMask();
+        }
+    }
+
+    /**
+     * @param index 目标序号,0为{@link #targetView}对应的主目标
+     */
+    public GuideTarget getTarget(int index) {
+        return targets.get(index);
+    }
+
+    public int getTargetCount() {
+        return targets.size();
+    }
+
     /**
      * 移除添加的Component
      */
     public void removeComponent(GuideComponent component) {
-        this.removeView(component.attachedView);
+        if (pendingComponents.remove(component) && pendingComponents.isEmpty()) {
+            //没有等待显示的Component时不再显示空蒙版
+            cancelSchedule();
+        }
+        View child = component.attachedView;
+        if (child.getParent() != this) {
+            return;
+        }
+        mComponentDirtyRect.set(child.getLeft(), child.getTop(), child.getRight(), child.getBottom());
+        mComponentDirtyRect.inset(-DIRTY_MARGIN, -DIRTY_MARGIN);
+        components.remove(component);
+        this.removeViewInLayout(child);
+        invalidateRegion(mComponentDirtyRect);
+    }
+
+    public int getMaskColor() {
+        return maskColor;
+    }
+
+    public void setMaskColor(int maskColor) {
+        if (this.maskColor != maskColor) {
+            this.maskColor = maskColor;
+            invalidateMask();
+        }
     }
 
     public float getTargetRadius() {
-        return targetRadius;
+        return targets.get(0).getTargetRadius();
     }
 
     public void setTargetRadius(float targetRadius) {
-        this.targetRadius = targetRadius;
+        targets.get(0).setTargetRadius(targetRadius);
     }
 
     public float getTargetPadding() {
-        return targetPadding;
+        return targets.get(0).getTargetPadding();
     }
 
     public void setTargetPadding(float targetPadding) {
-        this.targetPadding = targetPadding;
+        targets.get(0).setTargetPadding(targetPadding);
     }
 
     public float getRoundRadius() {
-        return roundRadius;
+        return targets.get(0).getRoundRadius();
     }
 
     public void setRoundRadius(float roundRadius) {
-        this.roundRadius = roundRadius;
+        targets.get(0).setRoundRadius(roundRadius);
     }
 
     public float getOvalXRadius() {
-        return ovalXRadius;
+        return targets.get(0).getOvalXRadius();
     }
 
     public void setOvalXRadius(float ovalXRadius) {
-        this.ovalXRadius = ovalXRadius;
+        targets.get(0).setOvalXRadius(ovalXRadius);
     }
 
     public float getOvalYRadius() {
-        return ovalYRadius;
+        return targets.get(0).getOvalYRadius();
     }
 
     public void setOvalYRadius(float ovalYRadius) {
-        this.ovalYRadius = ovalYRadius;
+        targets.get(0).setOvalYRadius(ovalYRadius);
     }
 
     public TargetShape getTargetShape() {
-        return targetShape;
+        return targets.get(0).getTargetShape();
     }
 
     public void setTargetShape(TargetShape targetShape) {
-        this.targetShape = targetShape;
+        targets.get(0).setTargetShape(targetShape);
+    }
+
+    public CutoutShape getCutoutShape() {
+        return targets.get(0).getCutoutShape();
+    }
+
+    /**
+     * 主目标使用自定义的抠出形状,见{@link CutoutShapes}
+     */
+    public void setCutoutShape(CutoutShape cutoutShape) {
+        targets.get(0).setCutoutShape(cutoutShape);
+    }
+
+    public RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    public void setRenderMode(RenderMode renderMode) {
+        if (this.renderMode == renderMode) {
+            return;
+        }
+        this.renderMode = renderMode;
+        initBuffers();
+        invalidateMask();
+    }
+
+    public MaskBufferFormat getMaskBufferFormat() {
+        return maskBufferFormat;
+    }
+
+    /**
+     * @param maskBufferFormat {@link RenderMode#BITMAP}下蒙层Bitmap的格式
+     */
+    public void setMaskBufferFormat(MaskBufferFormat maskBufferFormat) {
+        if (this.maskBufferFormat != maskBufferFormat) {
+            this.maskBufferFormat = maskBufferFormat;
+            initBuffers();
+            invalidateMask();
+        }
+    }
+
+    public float getMaskBufferScale() {
+        return maskBufferScale;
+    }
+
+    /**
+     * @param maskBufferScale {@link RenderMode#BITMAP}下蒙层Bitmap相对蒙版的缩放比例(0,1],
+     *                        小于1时蒙层边缘会变得柔和,例如0.5时内存为原来的1/4
+     */
+    public void setMaskBufferScale(float maskBufferScale) {
+        if (maskBufferScale <= 0 || maskBufferScale > 1) {
+            throw new IllegalArgumentException("maskBufferScale must be in (0, 1]: " + maskBufferScale);
+        }
+        if (this.maskBufferScale != maskBufferScale) {
+            this.maskBufferScale = maskBufferScale;
+            initBuffers();
+            invalidateMask();
+        }
+    }
+
+    public TouchPolicy getTouchPolicy() {
+        return touchPolicy;
+    }
+
+    public void setTouchPolicy(TouchPolicy touchPolicy) {
+        this.touchPolicy = touchPolicy;
+    }
+
+    public boolean isDismissOnOutsideTap() {
+        return dismissOnOutsideTap;
+    }
+
+    /**
+     * @param dismissOnOutsideTap 点击抠出区域以外时是否移除蒙版,{@link TouchPolicy#PASS_THROUGH}下无效
+     */
+    public void setDismissOnOutsideTap(boolean dismissOnOutsideTap) {
+        this.dismissOnOutsideTap = dismissOnOutsideTap;
+    }
+
+    public void setOnOutsideTapListener(OnOutsideTapListener outsideTapListener) {
+        this.outsideTapListener = outsideTapListener;
+    }
+
+    public float getFeatherRadius() {
+        return featherRadius;
+    }
+
+    /**
+     * @param featherRadius 抠出区域边缘的羽化半径,每个目标生成一张羽化纹理,
+     *                      形状或尺寸变化时才重新生成;{@link RenderMode#CLIP_PATH}下改用图层绘制
+     */
+    public void setFeatherRadius(float featherRadius) {
+        if (featherRadius < 0) {
+            throw new IllegalArgumentException("featherRadius must be >= 0: " + featherRadius);
+        }
+        if (this.featherRadius != featherRadius) {
+            this.featherRadius = featherRadius;
+            invalidateMask();
+        }
+    }
+
+    public float getBackdropBlurRadius() {
+        return backdropBlurRadius;
+    }
+
+    /**
+     * @param backdropBlurRadius 模糊背景的半径,大于0时显示时截取一次rootView的内容,
+     *                           内容变化后需要调用{@link #invalidateBackdrop()}
+     */
+    public void setBackdropBlurRadius(float backdropBlurRadius) {
+        if (backdropBlurRadius < 0) {
+            throw new IllegalArgumentException("backdropBlurRadius must be >= 0: " + backdropBlurRadius);
+        }
+        if (this.backdropBlurRadius == backdropBlurRadius) {
+            return;
+        }
+        this.backdropBlurRadius = backdropBlurRadius;
+        if (backdropBlurRadius == 0) {
+            releaseBackdrop();
+            invalidateMask();
+        } else {
+            invalidateBackdrop();
+        }
+    }
+
+    public GuideMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * @param metricsListener 性能指标回调,null为关闭
+     */
+    public void setMetricsListener(GuideMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    public boolean isDebugOverlayEnabled() {
+        return debugOverlay;
+    }
+
+    /**
+     * @param debugOverlay 在蒙版最上层绘制目标、抠出区域以及Component的边框,
+     *                     只在{@link GuideDiagnostics#ENABLED}时生效
+     */
+    public void setDebugOverlayEnabled(boolean debugOverlay) {
+        if (this.debugOverlay != debugOverlay) {
+            this.debugOverlay = debugOverlay;
+            invalidate();
+        }
+    }
+
+    public AttachMode getAttachMode() {
+        return attachMode;
+    }
+
+    /**
+     * @param attachMode 蒙版显示的方式,在{@link #attachToRoot()}之前设置
+     */
+    public void setAttachMode(AttachMode attachMode) {
+        this.attachMode = attachMode;
+    }
+
+    public boolean isTrackTargets() {
+        return trackTargets;
+    }
+
+    /**
+     * @param trackTargets 目标在滚动的列表中或者有动画时,每帧绘制前跟踪目标位置,
+     *                     只有目标移动时才刷新,不需要{@link #reset()}
+     */
+    public void setTrackTargets(boolean trackTargets) {
+        this.trackTargets = trackTargets;
+        updateTracking();
     }
 
     public boolean isCanComponentCoverTarget() {
@@ -318,10 +1782,47 @@ public class GuideMaskView extends RelativeLayout {
          * TargetView显示的形状
          */
         private TargetShape targetShape = TargetShape.Round_Rectangle;
+        private CutoutShape cutoutShape;
         /**
          * 添加的Component是否可以覆盖住TargetView
          */
         private boolean canComponentCoverTarget = true;
+        /**
+         * 除主目标以外的其他不被遮盖的目标
+         */
+        private List<GuideTarget> extraTargets = new ArrayList<>();
+        /**
+         * 蒙层绘制方式
+         */
+        private RenderMode renderMode = defaultRenderMode();
+        /**
+         * 蒙层Bitmap的格式
+         */
+        private MaskBufferFormat maskBufferFormat = MaskBufferFormat.ARGB_8888;
+        /**
+         * 蒙层Bitmap相对蒙版的缩放比例
+         */
+        private float maskBufferScale = 1f;
+        private float featherRadius;
+        private float backdropBlurRadius;
+        /**
+         * 性能指标回调
+         */
+        private GuideMetricsListener metricsListener;
+        /**
+         * 是否跟踪目标位置
+         */
+        private boolean trackTargets;
+        /**
+         * 蒙版显示的方式
+         */
+        private AttachMode attachMode = AttachMode.CHILD;
+        /**
+         * 触摸处理方式
+         */
+        private TouchPolicy touchPolicy = TouchPolicy.PASS_THROUGH_CUTOUT;
+        private boolean dismissOnOutsideTap;
+        private OnOutsideTapListener outsideTapListener;
 
         /**
          * 被填上蒙版的根View
@@ -375,11 +1876,79 @@ public class GuideMaskView extends RelativeLayout {
             return this;
         }
 
+        public Builder setCutoutShape(CutoutShape cutoutShape) {
+            this.cutoutShape = cutoutShape;
+            return this;
+        }
+
         public Builder setCanComponentCoverTarget(boolean canComponentCoverTarget) {
             this.canComponentCoverTarget = canComponentCoverTarget;
             return this;
         }
 
+        public Builder setRenderMode(RenderMode renderMode) {
+            this.renderMode = renderMode;
+            return this;
+        }
+
+        /**
+         * 添加除主目标以外的其他不被遮盖的目标
+         */
+        public Builder addTarget(GuideTarget target) {
+            extraTargets.add(target);
+            return this;
+        }
+
+        public Builder setMaskBufferFormat(MaskBufferFormat maskBufferFormat) {
+            this.maskBufferFormat = maskBufferFormat;
+            return this;
+        }
+
+        public Builder setMaskBufferScale(float maskBufferScale) {
+            this.maskBufferScale = maskBufferScale;
+            return this;
+        }
+
+        public Builder setTouchPolicy(TouchPolicy touchPolicy) {
+            this.touchPolicy = touchPolicy;
+            return this;
+        }
+
+        public Builder setDismissOnOutsideTap(boolean dismissOnOutsideTap) {
+            this.dismissOnOutsideTap = dismissOnOutsideTap;
+            return this;
+        }
+
+        public Builder setOnOutsideTapListener(OnOutsideTapListener outsideTapListener) {
+            this.outsideTapListener = outsideTapListener;
+            return this;
+        }
+
+        public Builder setFeatherRadius(float featherRadius) {
+            this.featherRadius = featherRadius;
+            return this;
+        }
+
+        public Builder setBackdropBlurRadius(float backdropBlurRadius) {
+            this.backdropBlurRadius = backdropBlurRadius;
+            return this;
+        }
+
+        public Builder setAttachMode(AttachMode attachMode) {
+            this.attachMode = attachMode;
+            return this;
+        }
+
+        public Builder setTrackTargets(boolean trackTargets) {
+            this.trackTargets = trackTargets;
+            return this;
+        }
+
+        public Builder setMetricsListener(GuideMetricsListener metricsListener) {
+            this.metricsListener = metricsListener;
+            return this;
+        }
+
         public Builder setRootView(ViewGroup rootView) {
             this.rootView = rootView;
             return this;
@@ -393,13 +1962,30 @@ public class GuideMaskView extends RelativeLayout {
         public GuideMaskView build() {
             GuideMaskView maskView = new GuideMaskView(context, targetView, rootView);
             maskView.maskColor = maskColor;
-            maskView.targetRadius = targetRadius;
-            maskView.targetPadding = targetPadding;
-            maskView.roundRadius = roundRadius;
-            maskView.ovalXRadius = ovalXRadius;
-            maskView.ovalYRadius = ovalYRadius;
-            maskView.targetShape = targetShape;
+            GuideTarget primaryTarget = maskView.getTarget(0);
+            primaryTarget.targetRadius = targetRadius;
+            primaryTarget.targetPadding = targetPadding;
+            primaryTarget.roundRadius = roundRadius;
+            primaryTarget.ovalXRadius = ovalXRadius;
+            primaryTarget.ovalYRadius = ovalYRadius;
+            primaryTarget.targetShape = targetShape;
+            primaryTarget.cutoutShape = cutoutShape;
+            primaryTarget.invalidateCutout();
+            for (GuideTarget target : extraTargets) {
+                maskView.addTarget(target);
+            }
             maskView.canComponentCoverTarget = canComponentCoverTarget;
+            maskView.metricsListener = metricsListener;
+            maskView.trackTargets = trackTargets;
+            maskView.attachMode = attachMode;
+            maskView.touchPolicy = touchPolicy;
+            maskView.dismissOnOutsideTap = dismissOnOutsideTap;
+            maskView.outsideTapListener = outsideTapListener;
+            maskView.setMaskBufferFormat(maskBufferFormat);
+            maskView.setMaskBufferScale(maskBufferScale);
+            maskView.setFeatherRadius(featherRadius);
+            maskView.setBackdropBlurRadius(backdropBlurRadius);
+            maskView.setRenderMode(renderMode);
             return maskView;
         }
     }
@@ -0,0 +1,32 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+/**
+ * {@link GuideMaskView}的性能指标回调,用于转发到自己的统计系统,
+ * 没有设置时不会计时也不会产生任何额外开销,所有回调都在UI线程
+ */
+public interface GuideMetricsListener {
+    /**
+     * @param renderMode 实际使用的绘制方式
+     * @param durationNs 一次绘制蒙层的耗时
+     */
+    void onDrawMask(GuideMaskView maskView, GuideMaskView.RenderMode renderMode, long durationNs);
+
+    void onMeasure(GuideMaskView maskView, long durationNs);
+
+    void onReset(GuideMaskView maskView, long durationNs);
+
+    /**
+     * @param durationNs 添加并摆放Component的耗时
+     */
+    void onAddComponent(GuideMaskView maskView, GuideComponent component, long durationNs);
+
+    /**
+     * @param bytes 蒙层Bitmap分配或释放后当前占用的字节数
+     */
+    void onMaskBufferChanged(GuideMaskView maskView, int bytes);
+
+    /**
+     * @param full true为整个蒙层重新绘制,false为只刷新局部区域
+     */
+    void onInvalidate(GuideMaskView maskView, boolean full);
+}
@@ -0,0 +1,312 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.XmlResourceParser;
+import android.support.v4.content.ContextCompat;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 由xml资源描述的引导,解析一次后缓存,不可变,可以在多个界面上重复{@link #inflate(ViewGroup)}.
+ * 颜色资源以及dp在inflate时按rootView的Context换算,缓存不受主题、夜间模式以及density变化影响
+ * <pre>
+ * &lt;guide maskColor="#99000000" renderMode="AUTO" transitionDuration="300" trackTargets="false"&gt;
+ *     &lt;step&gt;
+ *         &lt;target id="@id/test_lin" shape="Oval" radius="5" padding="1dp"
+ *             roundRadius="0" ovalXRadius="150dp" ovalYRadius="250dp"/&gt;
+ *         &lt;component layout="@layout/layout_attached" direction="AUTO"
+ *             xOffset="0" yOffset="16dp" target="0"/&gt;
+ *     &lt;/step&gt;
+ * &lt;/guide&gt;
+ * </pre>
+ * 尺寸可以是像素或者dp
+ */
+public final class GuidePlan {
+    //测试中直接放入构造好的引导
+    static final SparseArray<GuidePlan> CACHE = new SparseArray<>();
+
+    private final int maskColor;
+    private final int maskColorRes;
+    private final GuideMaskView.RenderMode renderMode;
+    private final long transitionDuration;
+    private final boolean trackTargets;
+    private final List<Step> steps;
+
+    /**
+     * 一步中的目标以及Component
+     */
+    public static final class Step {
+        private final List<Target> targets;
+        private final List<Component> components;
+
+        Step(List<Target> targets, List<Component> components) {
+            this.targets = Collections.unmodifiableList(new ArrayList<>(targets));
+            this.components = Collections.unmodifiableList(new ArrayList<>(components));
+        }
+
+        public List<Target> getTargets() {
+            return targets;
+        }
+
+        public List<Component> getComponents() {
+            return components;
+        }
+    }
+
+    /**
+     * 通过View id指定的目标
+     */
+    public static final class Target {
+        final int viewId;
+        final GuideMaskView.TargetShape shape;
+        final Dimension radius;
+        final Dimension padding;
+        final Dimension roundRadius;
+        final Dimension ovalXRadius;
+        final Dimension ovalYRadius;
+
+        Target(int viewId, GuideMaskView.TargetShape shape, Dimension radius, Dimension padding,
+               Dimension roundRadius, Dimension ovalXRadius, Dimension ovalYRadius) {
+            this.viewId = viewId;
+            this.shape = shape;
+            this.radius = radius;
+            this.padding = padding;
+            this.roundRadius = roundRadius;
+            this.ovalXRadius = ovalXRadius;
+            this.ovalYRadius = ovalYRadius;
+        }
+
+        public int getViewId() {
+            return viewId;
+        }
+
+        GuideTarget build(View view, float density) {
+            return new GuideTarget.Builder(view)
+                    .setTargetShape(shape)
+                    .setTargetRadius(radius.toPixels(density))
+                    .setTargetPadding(padding.toPixels(density))
+                    .setRoundRadius(roundRadius.toPixels(density))
+                    .setOvalXRadius(ovalXRadius.toPixels(density))
+                    .setOvalYRadius(ovalYRadius.toPixels(density))
+                    .build();
+        }
+    }
+
+    /**
+     * 通过layout id指定的Component
+     */
+    public static final class Component {
+        final int layoutId;
+        final GuideComponent.ComponentDirection direction;
+        final Dimension xOffset;
+        final Dimension yOffset;
+        final int targetIndex;
+
+        Component(int layoutId, GuideComponent.ComponentDirection direction, Dimension xOffset, Dimension yOffset, int targetIndex) {
+            this.layoutId = layoutId;
+            this.direction = direction;
+            this.xOffset = xOffset;
+            this.yOffset = yOffset;
+            this.targetIndex = targetIndex;
+        }
+
+        public int getLayoutId() {
+            return layoutId;
+        }
+    }
+
+    /**
+     * xml中的尺寸,dp在inflate时按当前density换算
+     */
+    static final class Dimension {
+        final float value;
+        final boolean dp;
+
+        Dimension(float value, boolean dp) {
+            this.value = value;
+            this.dp = dp;
+        }
+
+        float toPixels(float density) {
+            return dp ? value * density : value;
+        }
+    }
+
+    /**
+     * @param maskColorRes 颜色资源,为0时使用maskColor
+     */
+    GuidePlan(int maskColor, int maskColorRes, GuideMaskView.RenderMode renderMode, long transitionDuration,
+              boolean trackTargets, List<Step> steps) {
+        this.maskColor = maskColor;
+        this.maskColorRes = maskColorRes;
+        this.renderMode = renderMode;
+        this.transitionDuration = transitionDuration;
+        this.trackTargets = trackTargets;
+        this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+    }
+
+    /**
+     * 获取xml资源对应的引导,同一个资源只解析一次
+     *
+     * @param xmlRes res/xml下的引导定义
+     */
+    public static GuidePlan load(Context context, int xmlRes) {
+        synchronized (CACHE) {
+            GuidePlan plan = CACHE.get(xmlRes);
+            if (plan != null) {
+                return plan;
+            }
+        }
+        Resources resources = context.getResources();
+        XmlResourceParser parser = resources.getXml(xmlRes);
+        GuidePlan plan;
+        try {
+            plan = GuidePlanParser.parse(parser);
+        } catch (XmlPullParserException | IOException e) {
+            throw new IllegalArgumentException("Invalid guide definition " + resources.getResourceName(xmlRes), e);
+        } finally {
+            parser.close();
+        }
+        synchronized (CACHE) {
+            //并发解析时保留先放入的结果
+            GuidePlan cached = CACHE.get(xmlRes);
+            if (cached != null) {
+                return cached;
+            }
+            CACHE.put(xmlRes, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * 按照定义在rootView上创建蒙版以及所有步骤,同一个layout在多个步骤中只inflate一次
+     *
+     * @param rootView 蒙版所在的根View,目标通过id在其中查找
+     */
+    public GuideSequence inflate(ViewGroup rootView) {
+        return inflate(rootView, null);
+    }
+
+    /**
+     * @param preinflated 后台提前inflate好的Component,按layout id分组,用完后再在UI线程inflate
+     */
+    GuideSequence inflate(ViewGroup rootView, SparseArray<List<View>> preinflated) {
+        if (steps.isEmpty() || steps.get(0).targets.isEmpty()) {
+            throw new IllegalStateException("Guide definition has no target");
+        }
+        Context context = rootView.getContext();
+        float density = context.getResources().getDisplayMetrics().density;
+        GuideMaskView maskView = new GuideMaskView.Builder(context, rootView, findTarget(rootView, steps.get(0).targets.get(0)))
+                .setMaskColor(maskColorRes != 0 ? ContextCompat.getColor(context, maskColorRes) : maskColor)
+                .setRenderMode(renderMode)
+                .setTrackTargets(trackTargets)
+                .build();
+
+        LayoutInflater inflater = LayoutInflater.from(context);
+        SparseArray<View> inflated = new SparseArray<>();
+        List<View> stepViews = new ArrayList<>();
+        GuideSequence.Builder builder = new GuideSequence.Builder(maskView).setTransitionDuration(transitionDuration);
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            GuideStep.Builder stepBuilder = new GuideStep.Builder();
+            for (int j = 0; j < step.targets.size(); j++) {
+                Target target = step.targets.get(j);
+                stepBuilder.addTarget(target.build(findTarget(rootView, target), density));
+            }
+            stepViews.clear();
+            for (int j = 0; j < step.components.size(); j++) {
+                Component component = step.components.get(j);
+                //步骤依次显示,不同步骤可以共用同一个View,同一步中重复的layout才需要再inflate
+                View view = inflated.get(component.layoutId);
+                if (view == null || stepViews.contains(view)) {
+                    view = obtainView(component.layoutId, preinflated, inflater, maskView);
+                    if (inflated.get(component.layoutId) == null) {
+                        inflated.put(component.layoutId, view);
+                    }
+                }
+                stepViews.add(view);
+                stepBuilder.addComponent(new GuideComponent(view, maskView, component.direction,
+                        Math.round(component.xOffset.toPixels(density)), Math.round(component.yOffset.toPixels(density)),
+                        component.targetIndex));
+            }
+            builder.addStep(stepBuilder.build());
+        }
+        return builder.build();
+    }
+
+    /**
+     * 按{@link #inflate(ViewGroup)}创建的蒙版提前创建蒙层Bitmap,蒙版使用默认的格式以及缩放比例,没有模糊背景
+     *
+     * @param width  rootView的宽度
+     * @param height rootView的高度
+     */
+    void prewarmMaskBuffer(int width, int height) {
+        GuideMaskView.prewarmBuffers(renderMode, GuideMaskView.MaskBufferFormat.ARGB_8888, 1f, 0, width, height);
+    }
+
+    private static View obtainView(int layoutId, SparseArray<List<View>> preinflated, LayoutInflater inflater, ViewGroup parent) {
+        List<View> views = preinflated == null ? null : preinflated.get(layoutId);
+        if (views != null && !views.isEmpty()) {
+            return views.remove(views.size() - 1);
+        }
+        return inflater.inflate(layoutId, parent, false);
+    }
+
+    private static View findTarget(ViewGroup rootView, Target target) {
+        View view = rootView.findViewById(target.viewId);
+        if (view == null) {
+            throw new IllegalArgumentException("Guide target not found: " + rootView.getResources().getResourceName(target.viewId));
+        }
+        return view;
+    }
+
+    /**
+     * @return xml中直接写的颜色,引用颜色资源时见{@link #getMaskColorRes()}
+     */
+    public int getMaskColor() {
+        return maskColor;
+    }
+
+    /**
+     * @return xml中引用的颜色资源,inflate时按rootView的主题解析,没有引用时为0
+     */
+    public int getMaskColorRes() {
+        return maskColorRes;
+    }
+
+    public GuideMaskView.RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    public long getTransitionDuration() {
+        return transitionDuration;
+    }
+
+    public boolean isTrackTargets() {
+        return trackTargets;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * 清空解析缓存
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+}
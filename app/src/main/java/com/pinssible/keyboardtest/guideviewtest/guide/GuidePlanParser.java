@@ -0,0 +1,135 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.content.res.Resources;
+import android.util.AttributeSet;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将xml引导定义编译为{@link GuidePlan},颜色资源以及dp保留原始值,inflate时再换算
+ */
+final class GuidePlanParser {
+    private static final String TAG_GUIDE = "guide";
+    private static final String TAG_STEP = "step";
+    private static final String TAG_TARGET = "target";
+    private static final String TAG_COMPONENT = "component";
+
+    private GuidePlanParser() {
+    }
+
+    /**
+     * @param parser 同时作为AttributeSet读取属性,例如{@link Resources#getXml(int)}的结果
+     */
+    static <P extends XmlPullParser & AttributeSet> GuidePlan parse(P parser)
+            throws XmlPullParserException, IOException {
+        int maskColor = 0x66000000;
+        int maskColorRes = 0;
+        GuideMaskView.RenderMode renderMode = GuideMaskView.RenderMode.AUTO;
+        long transitionDuration = 0;
+        boolean trackTargets = false;
+        List<GuidePlan.Step> steps = new ArrayList<>();
+        List<GuidePlan.Target> targets = new ArrayList<>();
+        List<GuidePlan.Component> components = new ArrayList<>();
+        boolean inGuide = false;
+        boolean inStep = false;
+
+        int event = parser.getEventType();
+        while (event != XmlPullParser.END_DOCUMENT) {
+            if (event == XmlPullParser.START_TAG) {
+                String name = parser.getName();
+                if (TAG_GUIDE.equals(name) && !inGuide) {
+                    inGuide = true;
+                    maskColorRes = parser.getAttributeResourceValue(null, "maskColor", 0);
+                    if (maskColorRes == 0) {
+                        maskColor = parser.getAttributeIntValue(null, "maskColor", maskColor);
+                    }
+                    renderMode = parseEnum(parser, "renderMode", GuideMaskView.RenderMode.class, renderMode);
+                    transitionDuration = parser.getAttributeIntValue(null, "transitionDuration", 0);
+                    trackTargets = parser.getAttributeBooleanValue(null, "trackTargets", false);
+                } else if (TAG_STEP.equals(name) && inGuide && !inStep) {
+                    inStep = true;
+                    targets.clear();
+                    components.clear();
+                } else if (TAG_TARGET.equals(name) && inStep) {
+                    targets.add(new GuidePlan.Target(
+                            requireResource(parser, "id"),
+                            parseEnum(parser, "shape", GuideMaskView.TargetShape.class, GuideMaskView.TargetShape.Round_Rectangle),
+                            parseDimension(parser, "radius", 5),
+                            parseDimension(parser, "padding", 1),
+                            parseDimension(parser, "roundRadius", 0),
+                            parseDimension(parser, "ovalXRadius", 0),
+                            parseDimension(parser, "ovalYRadius", 0)));
+                } else if (TAG_COMPONENT.equals(name) && inStep) {
+                    components.add(new GuidePlan.Component(
+                            requireResource(parser, "layout"),
+                            parseEnum(parser, "direction", GuideComponent.ComponentDirection.class, GuideComponent.ComponentDirection.LEFT_TOP),
+                            parseDimension(parser, "xOffset", 0),
+                            parseDimension(parser, "yOffset", 0),
+                            parser.getAttributeIntValue(null, "target", 0)));
+                } else {
+                    throw new XmlPullParserException("Unexpected <" + name + "> in guide definition");
+                }
+            } else if (event == XmlPullParser.END_TAG && TAG_STEP.equals(parser.getName())) {
+                if (targets.isEmpty()) {
+                    throw new XmlPullParserException("<step> needs at least one <target>");
+                }
+                steps.add(new GuidePlan.Step(targets, components));
+                inStep = false;
+            }
+            event = parser.next();
+        }
+        return new GuidePlan(maskColor, maskColorRes, renderMode, transitionDuration, trackTargets, steps);
+    }
+
+    private static int requireResource(AttributeSet attrs, String name) throws XmlPullParserException {
+        int id = attrs.getAttributeResourceValue(null, name, 0);
+        if (id == 0) {
+            throw new XmlPullParserException("Missing resource attribute " + name);
+        }
+        return id;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(AttributeSet attrs, String name, Class<E> type, E defaultValue)
+            throws XmlPullParserException {
+        String value = attrs.getAttributeValue(null, name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw new XmlPullParserException("Unknown " + name + " " + value);
+        }
+    }
+
+    /**
+     * 支持像素以及dp,编译后的dp值为"16.0dip"
+     */
+    static GuidePlan.Dimension parseDimension(AttributeSet attrs, String name, float defaultValue)
+            throws XmlPullParserException {
+        String value = attrs.getAttributeValue(null, name);
+        if (value == null) {
+            return new GuidePlan.Dimension(defaultValue, false);
+        }
+        boolean dp = false;
+        if (value.endsWith("dip")) {
+            value = value.substring(0, value.length() - 3);
+            dp = true;
+        } else if (value.endsWith("dp")) {
+            value = value.substring(0, value.length() - 2);
+            dp = true;
+        } else if (value.endsWith("px")) {
+            value = value.substring(0, value.length() - 2);
+        }
+        try {
+            return new GuidePlan.Dimension(Float.parseFloat(value), dp);
+        } catch (NumberFormatException e) {
+            throw new XmlPullParserException("Invalid dimension " + name + " " + value);
+        }
+    }
+}
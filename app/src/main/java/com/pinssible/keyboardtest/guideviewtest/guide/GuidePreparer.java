@@ -0,0 +1,212 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 在后台线程准备引导:解析{@link GuidePlan}、inflate所有Component以及创建蒙版会使用的蒙层Bitmap,
+ * 完成后在UI线程只需要查找目标并创建蒙版,通过{@link OnGuideReadyListener}返回
+ * <pre>
+ * preparer = GuidePreparer.prepare(container, R.xml.guide_main, new GuidePreparer.OnGuideReadyListener() {
+ *     public void onGuideReady(GuideSequence sequence) {
+ *         sequence.start();
+ *     }
+ * });
+ * //界面销毁时
+ * preparer.cancel();
+ * </pre>
+ */
+public final class GuidePreparer {
+    private static ExecutorService sExecutor;
+
+    private final ViewGroup rootView;
+    private final int xmlRes;
+    private final OnGuideReadyListener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Rect maskRect = new Rect();
+    private volatile boolean canceled;
+
+    /**
+     * 准备完成回调,在UI线程
+     */
+    public interface OnGuideReadyListener {
+        void onGuideReady(GuideSequence sequence);
+    }
+
+    private GuidePreparer(ViewGroup rootView, int xmlRes, OnGuideReadyListener listener) {
+        this.rootView = rootView;
+        this.xmlRes = xmlRes;
+        this.listener = listener;
+    }
+
+    /**
+     * 使用默认的后台线程准备引导,需要在UI线程调用
+     *
+     * @param rootView 蒙版所在的根View
+     * @param xmlRes   res/xml下的引导定义
+     */
+    public static GuidePreparer prepare(ViewGroup rootView, int xmlRes, OnGuideReadyListener listener) {
+        return prepare(rootView, xmlRes, defaultExecutor(), listener);
+    }
+
+    /**
+     * @param executor 执行解析以及inflate的后台线程
+     */
+    public static GuidePreparer prepare(ViewGroup rootView, int xmlRes, Executor executor, OnGuideReadyListener listener) {
+        //低内存设备上不预先创建蒙层Bitmap,需要在后台任务之前判断
+        MaskBitmapPool.init(rootView.getContext());
+        GuidePreparer preparer = new GuidePreparer(rootView, xmlRes, listener);
+        //rootView已经布局时提前按它的尺寸创建蒙层Bitmap
+        rootView.getHitRect(preparer.maskRect);
+        executor.execute(preparer.backgroundTask);
+        return preparer;
+    }
+
+    /**
+     * 取消准备,之后不会再回调,后台出错时也不再在UI线程抛出
+     */
+    public void cancel() {
+        canceled = true;
+    }
+
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    private final Runnable backgroundTask = new Runnable() {
+        @Override
+        public void run() {
+            if (canceled) {
+                return;
+            }
+            final Context context = rootView.getContext();
+            final GuidePlan plan;
+            final SparseArray<List<View>> views;
+            try {
+                plan = GuidePlan.load(context, xmlRes);
+                views = preinflate(context, plan);
+                plan.prewarmMaskBuffer(maskRect.width(), maskRect.height());
+            } catch (final RuntimeException e) {
+                //与同步调用一致,在UI线程抛出,已经取消时丢弃
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!canceled) {
+                            throw e;
+                        }
+                    }
+                });
+                return;
+            }
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!canceled) {
+                        listener.onGuideReady(plan.inflate(rootView, views));
+                    }
+                }
+            });
+        }
+    };
+
+    /**
+     * 按每个layout在同一步中出现的最多次数inflate,不同步骤共用同一个View,
+     * 不能在后台inflate的layout留给UI线程
+     */
+    private SparseArray<List<View>> preinflate(Context context, GuidePlan plan) {
+        SparseIntArray counts = new SparseIntArray();
+        SparseIntArray stepCounts = new SparseIntArray();
+        for (int i = 0; i < plan.getSteps().size(); i++) {
+            List<GuidePlan.Component> components = plan.getSteps().get(i).getComponents();
+            stepCounts.clear();
+            for (int j = 0; j < components.size(); j++) {
+                int layoutId = components.get(j).getLayoutId();
+                int count = stepCounts.get(layoutId) + 1;
+                stepCounts.put(layoutId, count);
+                if (count > counts.get(layoutId)) {
+                    counts.put(layoutId, count);
+                }
+            }
+        }
+
+        SparseArray<List<View>> views = new SparseArray<>();
+        LayoutInflater inflater = new BackgroundInflater(context);
+        //只用来生成LayoutParams,蒙版接受任意MarginLayoutParams
+        ViewGroup parent = new FrameLayout(context);
+        for (int i = 0; i < counts.size(); i++) {
+            int layoutId = counts.keyAt(i);
+            List<View> list = new ArrayList<>(counts.valueAt(i));
+            for (int j = 0; j < counts.valueAt(i) && !canceled; j++) {
+                try {
+                    list.add(inflater.inflate(layoutId, parent, false));
+                } catch (RuntimeException e) {
+                    break;
+                }
+            }
+            views.put(layoutId, list);
+        }
+        return views;
+    }
+
+    private static synchronized Executor defaultExecutor() {
+        if (sExecutor == null) {
+            sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "GuidePreparer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sExecutor;
+    }
+
+    /**
+     * 不带Activity中Factory的LayoutInflater,与AsyncLayoutInflater相同,
+     * 只支持不依赖UI线程的View
+     */
+    private static class BackgroundInflater extends LayoutInflater {
+        private static final String[] CLASS_PREFIXES = {"android.widget.", "android.webkit.", "android.app."};
+
+        BackgroundInflater(Context context) {
+            super(context);
+        }
+
+        @Override
+        public LayoutInflater cloneInContext(Context newContext) {
+            return new BackgroundInflater(newContext);
+        }
+
+        @Override
+        protected View onCreateView(String name, AttributeSet attrs) throws ClassNotFoundException {
+            for (String prefix : CLASS_PREFIXES) {
+                try {
+                    View view = createView(name, prefix, attrs);
+                    if (view != null) {
+                        return view;
+                    }
+                } catch (ClassNotFoundException e) {
+                    //继续尝试下一个前缀
+                }
+            }
+            return super.onCreateView(name, attrs);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录每个引导是否已经显示过,引导id为从0开始的较小整数,由应用自己分配.
+ * 所有状态在后台线程一次读出放在内存的BitSet中,所有方法只查改内存,不会阻塞,
+ * 修改后延迟合并写回SharedPreferences,不在UI线程读写磁盘
+ * <pre>
+ * //Application.onCreate中提前加载
+ * GuideRegistry.get(this);
+ *
+ * final GuideRegistry registry = GuideRegistry.get(context);
+ * registry.whenLoaded(new Runnable() {
+ *     public void run() {
+ *         if (registry.shouldShow(GUIDE_MAIN)) {
+ *             sequence.start();
+ *             registry.markSeen(GUIDE_MAIN);
+ *         }
+ *     }
+ * });
+ * </pre>
+ */
+public final class GuideRegistry {
+    static final String PREFS_NAME = "guide_registry";
+    static final String KEY_SEEN = "seen";
+
+    /**
+     * 合并写入的延迟
+     */
+    private static final long WRITE_DELAY_MS = 500;
+
+    private static GuideRegistry sInstance;
+
+    private final Context context;
+    private final ScheduledExecutorService executor;
+    private final long writeDelayMs;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    //以下字段由this保护
+    private final BitSet seen = new BitSet();
+    private boolean writeScheduled;
+    private SharedPreferences preferences;
+    private boolean loaded;
+    //加载完成前reset的引导,加载时从读出的状态中去掉
+    private final BitSet resetBeforeLoad = new BitSet();
+    private boolean resetAllBeforeLoad;
+    private List<Runnable> loadedCallbacks = new ArrayList<>();
+
+    /**
+     * 获取全局的Registry,第一次调用时开始在后台加载
+     */
+    public static synchronized GuideRegistry get(Context context) {
+        if (sInstance == null) {
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "GuideRegistry");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            sInstance = new GuideRegistry(context.getApplicationContext(), executor, WRITE_DELAY_MS);
+        }
+        return sInstance;
+    }
+
+    GuideRegistry(Context context, ScheduledExecutorService executor, long writeDelayMs) {
+        this.context = context;
+        this.executor = executor;
+        this.writeDelayMs = writeDelayMs;
+        executor.execute(loadTask);
+    }
+
+    /**
+     * 引导是否还没有显示过,加载完成前还不知道是否显示过,返回false,
+     * 需要在加载完成后判断时使用{@link #whenLoaded(Runnable)}
+     */
+    public synchronized boolean shouldShow(int guideId) {
+        checkId(guideId);
+        return loaded && !seen.get(guideId);
+    }
+
+    /**
+     * 后台加载是否已经完成,完成后{@link #shouldShow(int)}返回实际的状态
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 加载完成后在UI线程执行callback,已经加载完成并且在UI线程调用时立即执行
+     */
+    public void whenLoaded(Runnable callback) {
+        synchronized (this) {
+            if (!loaded) {
+                loadedCallbacks.add(callback);
+                return;
+            }
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            callback.run();
+        } else {
+            mainHandler.post(callback);
+        }
+    }
+
+    /**
+     * 标记引导已经显示,不需要等待加载完成
+     */
+    public synchronized void markSeen(int guideId) {
+        checkId(guideId);
+        if (!seen.get(guideId)) {
+            seen.set(guideId);
+            scheduleWrite(writeDelayMs);
+        }
+    }
+
+    /**
+     * 使引导可以再次显示,不需要等待加载完成
+     */
+    public synchronized void reset(int guideId) {
+        checkId(guideId);
+        if (!loaded) {
+            seen.clear(guideId);
+            resetBeforeLoad.set(guideId);
+            scheduleWrite(writeDelayMs);
+        } else if (seen.get(guideId)) {
+            seen.clear(guideId);
+            scheduleWrite(writeDelayMs);
+        }
+    }
+
+    /**
+     * 使所有引导可以再次显示,不需要等待加载完成
+     */
+    public synchronized void resetAll() {
+        if (!loaded) {
+            seen.clear();
+            resetAllBeforeLoad = true;
+            scheduleWrite(writeDelayMs);
+        } else if (!seen.isEmpty()) {
+            seen.clear();
+            scheduleWrite(writeDelayMs);
+        }
+    }
+
+    /**
+     * 立即在后台写入还没有保存的修改,例如在onPause中调用
+     */
+    public synchronized void flush() {
+        if (writeScheduled) {
+            executor.execute(writeTask);
+        }
+    }
+
+    private void scheduleWrite(long delayMs) {
+        if (!writeScheduled) {
+            writeScheduled = true;
+            executor.schedule(writeTask, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void checkId(int guideId) {
+        if (guideId < 0) {
+            throw new IllegalArgumentException("guideId must be >= 0: " + guideId);
+        }
+    }
+
+    private final Runnable loadTask = new Runnable() {
+        @Override
+        public void run() {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            BitSet stored;
+            try {
+                stored = decode(prefs.getString(KEY_SEEN, null));
+            } catch (RuntimeException e) {
+                //保存的内容类型不对等情况当作全部未显示,仍然要完成加载,否则whenLoaded永远不会回调
+                stored = new BitSet();
+            }
+            List<Runnable> callbacks;
+            synchronized (GuideRegistry.this) {
+                preferences = prefs;
+                //加载完成前的修改优先于读出的状态
+                if (resetAllBeforeLoad) {
+                    stored.clear();
+                }
+                stored.andNot(resetBeforeLoad);
+                seen.or(stored);
+                loaded = true;
+                callbacks = loadedCallbacks;
+                loadedCallbacks = null;
+            }
+            for (int i = 0; i < callbacks.size(); i++) {
+                mainHandler.post(callbacks.get(i));
+            }
+        }
+    };
+
+    private final Runnable writeTask = new Runnable() {
+        @Override
+        public void run() {
+            SharedPreferences prefs;
+            String value;
+            synchronized (GuideRegistry.this) {
+                //flush之后延迟的写入不再重复执行
+                if (!writeScheduled) {
+                    return;
+                }
+                writeScheduled = false;
+                prefs = preferences;
+                value = encode(seen);
+            }
+            prefs.edit().putString(KEY_SEEN, value).commit();
+        }
+    };
+
+    /**
+     * 每个十六进制字符保存4个引导,第一个字符为引导0-3
+     */
+    static String encode(BitSet bits) {
+        int length = (bits.length() + 3) / 4;
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            int nibble = 0;
+            for (int bit = 0; bit < 4; bit++) {
+                if (bits.get(i * 4 + bit)) {
+                    nibble |= 1 << bit;
+                }
+            }
+            builder.append(Character.forDigit(nibble, 16));
+        }
+        return builder.toString();
+    }
+
+    static BitSet decode(String value) {
+        BitSet bits = new BitSet();
+        if (value == null) {
+            return bits;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            int nibble = Character.digit(value.charAt(i), 16);
+            //无法识别的内容当作未显示
+            if (nibble < 0) {
+                return new BitSet();
+            }
+            for (int bit = 0; bit < 4; bit++) {
+                if ((nibble & (1 << bit)) != 0) {
+                    bits.set(i * 4 + bit);
+                }
+            }
+        }
+        return bits;
+    }
+}
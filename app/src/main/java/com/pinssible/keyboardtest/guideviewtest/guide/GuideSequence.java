@@ -0,0 +1,228 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 多步引导,所有步骤复用同一个{@link GuideMaskView}(同一张蒙层Bitmap以及Paint),
+ * 切换步骤时只替换目标区域以及Component,不会重新创建蒙版或者重新添加到rootView
+ */
+public class GuideSequence {
+    /**
+     * 复用的蒙版
+     */
+    protected final GuideMaskView maskView;
+
+    /**
+     * 所有步骤
+     */
+    protected final List<GuideStep> steps;
+
+    /**
+     * 当前显示的步骤序号,未开始时为-1
+     */
+    private int currentIndex = -1;
+
+    private boolean completed;
+
+    /**
+     * 步骤之间抠出区域的过渡动画时长,0为直接切换
+     */
+    private long transitionDuration;
+
+    private OnSequenceListener listener;
+
+    /**
+     * 步骤切换以及结束回调
+     */
+    public interface OnSequenceListener {
+        /**
+         * @param index 当前显示的步骤序号
+         */
+        void onStepShown(int index);
+
+        /**
+         * @param skipped 是否通过{@link #skip()}结束
+         */
+        void onCompleted(boolean skipped);
+    }
+
+    public GuideSequence(GuideMaskView maskView, List<GuideStep> steps) {
+        this.maskView = maskView;
+        this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+    }
+
+    public void setOnSequenceListener(OnSequenceListener listener) {
+        this.listener = listener;
+    }
+
+    public void setTransitionDuration(long transitionDuration) {
+        this.transitionDuration = transitionDuration;
+    }
+
+    /**
+     * 开始显示第一步,rootView还没有布局时等待布局完成后再显示
+     */
+    public void start() {
+        if (steps.isEmpty() || currentIndex >= 0) {
+            return;
+        }
+        final ViewGroup rootView = maskView.getMaskRootView();
+        if (rootView.getWidth() > 0) {
+            showFirstStep();
+        } else {
+            rootView.getViewTreeObserver().addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
+                @Override
+                public void onGlobalLayout() {
+                    rootView.getViewTreeObserver().removeOnGlobalLayoutListener(this);
+                    showFirstStep();
+                }
+            });
+        }
+    }
+
+    /**
+     * 显示下一步,已经是最后一步时结束引导
+     */
+    public void next() {
+        if (currentIndex < 0 || completed) {
+            return;
+        }
+        if (currentIndex + 1 < steps.size()) {
+            showStep(currentIndex + 1);
+        } else {
+            complete(false);
+        }
+    }
+
+    /**
+     * 显示上一步
+     */
+    public void previous() {
+        if (currentIndex > 0 && !completed) {
+            showStep(currentIndex - 1);
+        }
+    }
+
+    /**
+     * 跳过剩余步骤并结束引导
+     */
+    public void skip() {
+        if (currentIndex >= 0 && !completed) {
+            complete(true);
+        }
+    }
+
+    public int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    public int getStepCount() {
+        return steps.size();
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public GuideMaskView getMaskView() {
+        return maskView;
+    }
+
+    private void showFirstStep() {
+        if (completed) {
+            return;
+        }
+        showStep(0);
+        maskView.attachToRoot();
+    }
+
+    private void showStep(int index) {
+        boolean first = currentIndex < 0;
+        boolean animate = !first && transitionDuration > 0;
+        if (!first) {
+            removeComponents(steps.get(currentIndex));
+        }
+        currentIndex = index;
+        GuideStep step = steps.get(index);
+        if (animate) {
+            maskView.animateToTargets(step.targets, transitionDuration);
+        } else {
+            maskView.setTargets(step.targets);
+        }
+        if (first) {
+            //只在第一步时计算rootView区域以及创建蒙层Bitmap,之后的步骤全部复用,
+            //需要在添加Component之前,Component按计算好的蒙版区域摆放
+            maskView.reset();
+        }
+        for (int i = 0; i < step.components.size(); i++) {
+            GuideComponent component = step.components.get(i);
+            component.maskView = maskView;
+            maskView.addComponent(component);
+        }
+        if (listener != null) {
+            listener.onStepShown(index);
+        }
+    }
+
+    private void complete(boolean skipped) {
+        removeComponents(steps.get(currentIndex));
+        completed = true;
+        maskView.dismiss();
+        if (listener != null) {
+            listener.onCompleted(skipped);
+        }
+    }
+
+    private void removeComponents(GuideStep step) {
+        for (int i = 0; i < step.components.size(); i++) {
+            maskView.removeComponent(step.components.get(i));
+        }
+    }
+
+    /**
+     * 建造者
+     */
+    public static class Builder {
+        private GuideMaskView maskView;
+        private List<GuideStep> steps = new ArrayList<>();
+        private OnSequenceListener listener;
+        private long transitionDuration;
+
+        /**
+         * @param maskView 所有步骤共用的蒙版,蒙层颜色以及绘制方式在这里配置
+         */
+        public Builder(GuideMaskView maskView) {
+            this.maskView = maskView;
+        }
+
+        public Builder addStep(GuideStep step) {
+            steps.add(step);
+            return this;
+        }
+
+        public Builder setOnSequenceListener(OnSequenceListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * @param transitionDuration 步骤之间抠出区域的过渡动画时长,0为直接切换
+         */
+        public Builder setTransitionDuration(long transitionDuration) {
+            this.transitionDuration = transitionDuration;
+            return this;
+        }
+
+        public GuideSequence build() {
+            GuideSequence sequence = new GuideSequence(maskView, steps);
+            sequence.listener = listener;
+            sequence.transitionDuration = transitionDuration;
+            return sequence;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link GuideSequence}中的一步:需要抠出的目标以及显示在蒙版上的Component
+ */
+public class GuideStep {
+    /**
+     * 这一步不被遮盖的目标
+     */
+    protected final List<GuideTarget> targets;
+
+    /**
+     * 这一步显示的Component
+     */
+    protected final List<GuideComponent> components;
+
+    public GuideStep(List<GuideTarget> targets, List<GuideComponent> components) {
+        this.targets = Collections.unmodifiableList(new ArrayList<>(targets));
+        this.components = Collections.unmodifiableList(new ArrayList<>(components));
+    }
+
+    public List<GuideTarget> getTargets() {
+        return targets;
+    }
+
+    public List<GuideComponent> getComponents() {
+        return components;
+    }
+
+    /**
+     * 建造者
+     */
+    public static class Builder {
+        private List<GuideTarget> targets = new ArrayList<>();
+        private List<GuideComponent> components = new ArrayList<>();
+
+        public Builder addTarget(GuideTarget target) {
+            targets.add(target);
+            return this;
+        }
+
+        public Builder addComponent(GuideComponent component) {
+            components.add(component);
+            return this;
+        }
+
+        public GuideStep build() {
+            return new GuideStep(targets, components);
+        }
+    }
+}
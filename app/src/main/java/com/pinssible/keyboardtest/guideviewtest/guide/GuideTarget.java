@@ -0,0 +1,324 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.Bitmap;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * 蒙版上不被遮盖的目标,一个{@link GuideMaskView}可以同时抠出多个目标
+ */
+public class GuideTarget {
+    /**
+     * 用来显示的不被遮盖的View
+     */
+    protected View targetView;
+
+    //可配置属性
+    protected float targetRadius = 5;  //圆角矩形显示时的Radius
+    protected float targetPadding = 1; //圆角矩形(圆形/椭圆形)显示时的边距Padding
+    protected float roundRadius = 0; //圆形显示时候的半径
+    protected float ovalXRadius = 0; //椭圆形时x半径
+    protected float ovalYRadius = 0; //椭圆形时y半径
+    protected GuideMaskView.TargetShape targetShape = GuideMaskView.TargetShape.Round_Rectangle; //TargetView显示的形状
+    protected CutoutShape cutoutShape; //自定义的抠出形状,为null时使用targetShape
+
+    /**
+     * TargetView在蒙版中的区域,即相对rootView的区域
+     */
+    final RectF targetRectF = new RectF();
+
+    /**
+     * 所在的蒙版
+     */
+    GuideMaskView maskView;
+
+    /**
+     * 缓存的抠出区域,只在目标区域或参数变化后重新计算
+     */
+    final CutoutShape.Geometry cutout = new CutoutShape.Geometry();
+    private boolean cutoutDirty = true;
+
+    /**
+     * 抠出区域的外接矩形以及x,y方向的圆角半径,
+     * 圆形为正方形加上半径,椭圆为外接矩形加上宽高的一半,便于形状之间的插值过渡
+     */
+    final RectF cutoutRectF = cutout.bounds;
+    float cutoutRx;
+    float cutoutRy;
+
+    /**
+     * 羽化边缘纹理,第一次羽化绘制时创建
+     */
+    FeatherTexture feather;
+
+    private final Rect mHitRect = new Rect(); //复用的TargetView HitRect
+    private final TargetLocator mLocator = new TargetLocator(); //缓存的父View链
+    private final RectF mLocatedRectF = new RectF();
+
+    public GuideTarget(View targetView) {
+        this.targetView = targetView;
+    }
+
+    /**
+     * 布局变化后重新获取TargetView相对rootView的区域
+     *
+     * @return 区域是否发生变化
+     */
+    boolean updateRect() {
+        mLocator.invalidate();
+        cutoutDirty = true;
+        return trackRect();
+    }
+
+    /**
+     * 使用缓存的父View链获取TargetView相对rootView的区域,包括父View的滚动以及平移,
+     * 没有rootView时使用TargetView在父View中的区域
+     *
+     * @return 区域是否发生变化
+     */
+    boolean trackRect() {
+        if (targetView == null) {
+            return false;
+        }
+        ViewGroup rootView = maskView == null ? null : maskView.getMaskRootView();
+        if (rootView == null) {
+            targetView.getHitRect(mHitRect);
+            mLocatedRectF.set(mHitRect);
+        } else {
+            mLocator.locate(targetView, rootView, mLocatedRectF);
+        }
+        if (mLocatedRectF.equals(targetRectF)) {
+            return false;
+        }
+        targetRectF.set(mLocatedRectF);
+        cutoutDirty = true;
+        return true;
+    }
+
+    /**
+     * 父View的布局发生变化,下一次{@link #trackRect()}时重新查找父View链
+     */
+    void invalidateLocation() {
+        mLocator.invalidate();
+    }
+
+    /**
+     * 目标区域或参数变化后使用{@link #getCutoutShape()}重新计算抠出区域{@link #cutout}
+     */
+    void updateCutout() {
+        if (!cutoutDirty) {
+            return;
+        }
+        cutout.reset();
+        getCutoutShape().compute(this, targetRectF, cutout);
+        cutoutRx = cutout.rx;
+        cutoutRy = cutout.ry;
+        cutoutDirty = false;
+    }
+
+    /**
+     * 点(x,y)是否在抠出区域内,使用缓存的抠出形状直接计算
+     *
+     * @param x,y 相对rootView的坐标
+     */
+    boolean cutoutContains(float x, float y) {
+        updateCutout();
+        return cutout.contains(x, y);
+    }
+
+    /**
+     * 参数在外部直接修改后,下一次使用时重新计算抠出区域
+     */
+    void invalidateCutout() {
+        cutoutDirty = true;
+    }
+
+    /**
+     * 将抠出区域加入到Path中,按透明度抠出的形状不加入
+     */
+    void addCutout(Path path) {
+        updateCutout();
+        path.addPath(cutout.path);
+    }
+
+    /**
+     * 当前抠出区域对应的羽化纹理,形状与尺寸不变时直接复用
+     */
+    Bitmap getFeatherBitmap(float radius) {
+        updateCutout();
+        if (feather == null) {
+            feather = new FeatherTexture();
+        }
+        return feather.get(cutout, radius);
+    }
+
+    void releaseFeather() {
+        if (feather != null) {
+            feather.release();
+        }
+    }
+
+    private void invalidateMask() {
+        invalidateCutout();
+        if (feather != null) {
+            feather.invalidate();
+        }
+        if (maskView != null) {
+            maskView.invalidateMask();
+        }
+    }
+
+    public View getTargetView() {
+        return targetView;
+    }
+
+    public float getTargetRadius() {
+        return targetRadius;
+    }
+
+    public void setTargetRadius(float targetRadius) {
+        if (this.targetRadius != targetRadius) {
+            this.targetRadius = targetRadius;
+            invalidateMask();
+        }
+    }
+
+    public float getTargetPadding() {
+        return targetPadding;
+    }
+
+    public void setTargetPadding(float targetPadding) {
+        if (this.targetPadding != targetPadding) {
+            this.targetPadding = targetPadding;
+            invalidateMask();
+        }
+    }
+
+    public float getRoundRadius() {
+        return roundRadius;
+    }
+
+    public void setRoundRadius(float roundRadius) {
+        if (this.roundRadius != roundRadius) {
+            this.roundRadius = roundRadius;
+            invalidateMask();
+        }
+    }
+
+    public float getOvalXRadius() {
+        return ovalXRadius;
+    }
+
+    public void setOvalXRadius(float ovalXRadius) {
+        if (this.ovalXRadius != ovalXRadius) {
+            this.ovalXRadius = ovalXRadius;
+            invalidateMask();
+        }
+    }
+
+    public float getOvalYRadius() {
+        return ovalYRadius;
+    }
+
+    public void setOvalYRadius(float ovalYRadius) {
+        if (this.ovalYRadius != ovalYRadius) {
+            this.ovalYRadius = ovalYRadius;
+            invalidateMask();
+        }
+    }
+
+    public GuideMaskView.TargetShape getTargetShape() {
+        return targetShape;
+    }
+
+    public void setTargetShape(GuideMaskView.TargetShape targetShape) {
+        if (this.targetShape != targetShape || cutoutShape != null) {
+            this.targetShape = targetShape;
+            cutoutShape = null;
+            invalidateMask();
+        }
+    }
+
+    /**
+     * @return 实际使用的抠出形状
+     */
+    public CutoutShape getCutoutShape() {
+        return cutoutShape != null ? cutoutShape : CutoutShapes.of(targetShape);
+    }
+
+    /**
+     * 使用自定义的抠出形状,null时恢复为{@link #getTargetShape()},形状内部参数变化后需要重新设置
+     */
+    public void setCutoutShape(CutoutShape cutoutShape) {
+        this.cutoutShape = cutoutShape;
+        invalidateMask();
+    }
+
+    /**
+     * 建造者
+     */
+    public static class Builder {
+        private View targetView;
+        private float targetRadius = 5;
+        private float targetPadding = 1;
+        private float roundRadius = 0;
+        private float ovalXRadius = 0;
+        private float ovalYRadius = 0;
+        private GuideMaskView.TargetShape targetShape = GuideMaskView.TargetShape.Round_Rectangle;
+        private CutoutShape cutoutShape;
+
+        public Builder(View targetView) {
+            this.targetView = targetView;
+        }
+
+        public Builder setTargetRadius(float targetRadius) {
+            this.targetRadius = targetRadius;
+            return this;
+        }
+
+        public Builder setTargetPadding(float targetPadding) {
+            this.targetPadding = targetPadding;
+            return this;
+        }
+
+        public Builder setRoundRadius(float roundRadius) {
+            this.roundRadius = roundRadius;
+            return this;
+        }
+
+        public Builder setOvalXRadius(float ovalXRadius) {
+            this.ovalXRadius = ovalXRadius;
+            return this;
+        }
+
+        public Builder setOvalYRadius(float ovalYRadius) {
+            this.ovalYRadius = ovalYRadius;
+            return this;
+        }
+
+        public Builder setTargetShape(GuideMaskView.TargetShape targetShape) {
+            this.targetShape = targetShape;
+            return this;
+        }
+
+        public Builder setCutoutShape(CutoutShape cutoutShape) {
+            this.cutoutShape = cutoutShape;
+            return this;
+        }
+
+        public GuideTarget build() {
+            GuideTarget target = new GuideTarget(targetView);
+            target.targetRadius = targetRadius;
+            target.targetPadding = targetPadding;
+            target.roundRadius = roundRadius;
+            target.ovalXRadius = ovalXRadius;
+            target.ovalYRadius = ovalYRadius;
+            target.targetShape = targetShape;
+            target.cutoutShape = cutoutShape;
+            return target;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 进程内共享的蒙层Bitmap池,不同Activity中的蒙版复用同样尺寸的全屏Bitmap,
+ * 尺寸不同时在API 19以上通过{@link Bitmap#reconfigure}复用更大的Bitmap
+ */
+final class MaskBitmapPool {
+    /**
+     * 最多缓存的Bitmap数量,全屏Bitmap较大,只保留横竖屏各一张
+     */
+    private static final int MAX_POOL_SIZE = 2;
+
+    private static final List<Bitmap> sPool = new ArrayList<>(MAX_POOL_SIZE);
+
+    private static boolean sInitialized;
+    private static boolean sLowRamDevice;
+
+    /**
+     * 内存不足或者应用进入后台时回收池中的Bitmap
+     */
+    private static final ComponentCallbacks2 TRIM_CALLBACKS = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            trimMemory(level);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            clear();
+        }
+    };
+
+    private MaskBitmapPool() {
+    }
+
+    /**
+     * 判断是否为低内存设备,第一次调用时注册内存回调.
+     * 在创建或者预先创建任何蒙层Bitmap之前调用
+     */
+    static synchronized void init(Context context) {
+        Context appContext = context.getApplicationContext();
+        if (appContext == null) {
+            appContext = context;
+        }
+        if (!sInitialized) {
+            sInitialized = true;
+            appContext.registerComponentCallbacks(TRIM_CALLBACKS);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            ActivityManager activityManager = (ActivityManager) appContext.getSystemService(Context.ACTIVITY_SERVICE);
+            sLowRamDevice = activityManager != null && activityManager.isLowRamDevice();
+        }
+    }
+
+    /**
+     * 低内存设备上不缓存Bitmap,蒙层默认使用ALPHA_8
+     */
+    static synchronized boolean isLowRamDevice() {
+        return sLowRamDevice;
+    }
+
+    /**
+     * 应用进入后台或者运行时内存不足时回收池中所有的Bitmap
+     */
+    static void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            clear();
+        }
+    }
+
+    /**
+     * 获取指定尺寸的Bitmap,内容未定义,调用者需要整体重新绘制
+     */
+    static synchronized Bitmap acquire(int width, int height, Bitmap.Config config) {
+        //优先使用尺寸完全一致的Bitmap
+        for (int i = 0; i < sPool.size(); i++) {
+            Bitmap bitmap = sPool.get(i);
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config) {
+                sPool.remove(i);
+                return bitmap;
+            }
+        }
+        for (int i = 0; i < sPool.size(); i++) {
+            Bitmap bitmap = sPool.get(i);
+            if (reconfigure(bitmap, width, height, config)) {
+                sPool.remove(i);
+                return bitmap;
+            }
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * 将bitmap调整为指定尺寸,尺寸一致或者可以reconfigure时直接复用,否则放回池中并重新获取
+     */
+    static Bitmap resize(Bitmap bitmap, int width, int height, Bitmap.Config config) {
+        if (bitmap != null) {
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config) {
+                return bitmap;
+            }
+            if (reconfigure(bitmap, width, height, config)) {
+                return bitmap;
+            }
+            release(bitmap);
+        }
+        return acquire(width, height, config);
+    }
+
+    /**
+     * 在后台线程提前创建Bitmap放入池中,之后UI线程{@link #acquire}时直接复用,
+     * 池中已经有可以复用的Bitmap时不做任何事
+     */
+    static void prewarm(int width, int height, Bitmap.Config config) {
+        if (isLowRamDevice() || hasReusable(width, height, config)) {
+            return;
+        }
+        //在锁外创建,不阻塞UI线程获取
+        release(Bitmap.createBitmap(width, height, config));
+    }
+
+    private static synchronized boolean hasReusable(int width, int height, Bitmap.Config config) {
+        long bytes = (long) width * height * bytesPerPixel(config);
+        for (int i = 0; i < sPool.size(); i++) {
+            Bitmap bitmap = sPool.get(i);
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config) {
+                return true;
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT && bitmap.isMutable() && bitmap.getAllocationByteCount() >= bytes) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 将不再使用的Bitmap放回池中,超出数量时回收最早放入的Bitmap
+     */
+    static synchronized void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable() || sPool.contains(bitmap)) {
+            return;
+        }
+        if (sLowRamDevice) {
+            bitmap.recycle();
+            return;
+        }
+        if (sPool.size() >= MAX_POOL_SIZE) {
+            sPool.remove(0).recycle();
+        }
+        sPool.add(bitmap);
+    }
+
+    /**
+     * 回收池中所有的Bitmap
+     */
+    static synchronized void clear() {
+        for (int i = 0; i < sPool.size(); i++) {
+            sPool.get(i).recycle();
+        }
+        sPool.clear();
+    }
+
+    /**
+     * @return 池中Bitmap占用的字节数
+     */
+    static synchronized long getPooledBytes() {
+        long bytes = 0;
+        for (int i = 0; i < sPool.size(); i++) {
+            bytes += byteCount(sPool.get(i));
+        }
+        return bytes;
+    }
+
+    static int byteCount(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount();
+        }
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    private static boolean reconfigure(Bitmap bitmap, int width, int height, Bitmap.Config config) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT || !bitmap.isMutable()) {
+            return false;
+        }
+        if (bitmap.getAllocationByteCount() < (long) width * height * bytesPerPixel(config)) {
+            return false;
+        }
+        bitmap.reconfigure(width, height, config);
+        return true;
+    }
+
+    private static int bytesPerPixel(Bitmap.Config config) {
+        switch (config) {
+            case ALPHA_8:
+                return 1;
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.RectF;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+/**
+ * 计算View相对rootView的区域,缓存View到rootView之间的父View链,
+ * 只在{@link #invalidate()}之后(布局变化)重新查找,每次累加链上的位置、平移和滚动.
+ * 位置每次重新读取,RecyclerView等通过offsetTopAndBottom移动子View时不会触发布局
+ */
+final class TargetLocator {
+    private View[] chain = new View[8]; //View以及它到rootView之间的父View,不包括rootView
+    private int depth;
+    private boolean inRoot; //View是否在rootView中
+    private boolean valid;
+    private View cachedView;
+    private ViewGroup cachedRoot;
+    private final int[] mViewLocation = new int[2]; //不在rootView中时使用窗口坐标
+    private final int[] mRootLocation = new int[2];
+
+    /**
+     * 父View链可能变化,下一次{@link #locate}时重新查找
+     */
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * @param out View相对rootView的区域
+     */
+    void locate(View view, ViewGroup rootView, RectF out) {
+        if (!valid || view != cachedView || rootView != cachedRoot) {
+            rebuild(view, rootView);
+        }
+        float left;
+        float top;
+        if (inRoot) {
+            left = 0;
+            top = 0;
+            for (int i = 0; i < depth; i++) {
+                View v = chain[i];
+                left += v.getLeft() + v.getTranslationX();
+                top += v.getTop() + v.getTranslationY();
+                //rootView自身的滚动同样作用在蒙版上,不影响相对位置
+                if (i > 0) {
+                    left -= v.getScrollX();
+                    top -= v.getScrollY();
+                }
+            }
+        } else {
+            view.getLocationInWindow(mViewLocation);
+            rootView.getLocationInWindow(mRootLocation);
+            left = mViewLocation[0] - mRootLocation[0];
+            top = mViewLocation[1] - mRootLocation[1];
+        }
+        out.set(left, top, left + view.getWidth(), top + view.getHeight());
+    }
+
+    private void rebuild(View view, ViewGroup rootView) {
+        for (int i = 0; i < depth; i++) {
+            chain[i] = null;
+        }
+        depth = 0;
+        View current = view;
+        while (true) {
+            if (depth == chain.length) {
+                View[] larger = new View[depth * 2];
+                System.arraycopy(chain, 0, larger, 0, depth);
+                chain = larger;
+            }
+            chain[depth++] = current;
+            ViewParent parent = current.getParent();
+            if (parent == rootView) {
+                inRoot = true;
+                break;
+            }
+            if (!(parent instanceof View)) {
+                inRoot = false;
+                break;
+            }
+            current = (View) parent;
+        }
+        cachedView = view;
+        cachedRoot = rootView;
+        valid = true;
+    }
+}
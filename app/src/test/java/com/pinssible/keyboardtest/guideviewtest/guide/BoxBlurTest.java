@@ -0,0 +1,50 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link BoxBlur}对ARGB像素的模糊
+ */
+public class BoxBlurTest {
+    private static final int WIDTH = 9;
+    private static final int HEIGHT = 7;
+
+    @Test
+    public void uniformColorIsUnchanged() {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        Arrays.fill(pixels, 0xFF336699);
+        BoxBlur.blur(pixels, new int[pixels.length], WIDTH, HEIGHT, 2, 3);
+        int[] expected = new int[pixels.length];
+        Arrays.fill(expected, 0xFF336699);
+        assertArrayEquals(expected, pixels);
+    }
+
+    @Test
+    public void singlePixelSpreadsSymmetrically() {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        Arrays.fill(pixels, 0xFF000000);
+        pixels[3 * WIDTH + 4] = 0xFFFFFFFF;
+        BoxBlur.blur(pixels, new int[pixels.length], WIDTH, HEIGHT, 1, 1);
+
+        //3x3窗口平均,中心周围9个像素相同
+        int blurred = pixels[3 * WIDTH + 4];
+        assertTrue((blurred & 0xFF) > 0);
+        assertEquals(blurred, pixels[2 * WIDTH + 3]);
+        assertEquals(blurred, pixels[4 * WIDTH + 5]);
+        assertEquals(0xFF000000, pixels[3 * WIDTH + 6]);
+        assertEquals(0xFF, pixels[3 * WIDTH + 4] >>> 24);
+    }
+
+    @Test
+    public void zeroRadiusIsNoOp() {
+        int[] pixels = {0x11223344, 0x55667788};
+        BoxBlur.blur(pixels, new int[2], 2, 1, 0, 3);
+        assertArrayEquals(new int[]{0x11223344, 0x55667788}, pixels);
+    }
+}
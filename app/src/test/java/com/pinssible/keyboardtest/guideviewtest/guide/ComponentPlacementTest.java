@@ -0,0 +1,60 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link ComponentPlacement}在蒙版1000x2000中的摆放
+ */
+public class ComponentPlacementTest {
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 2000;
+
+    private final int[] out = new int[2];
+
+    @Test
+    public void prefersBelowCenteredOnCutout() {
+        assertEquals(ComponentPlacement.Side.BELOW, place(400, 100, 600, 300, 300, 200, false));
+        assertArrayEquals(new int[]{350, 320}, out);
+    }
+
+    @Test
+    public void clampsHorizontallyInsideMask() {
+        assertEquals(ComponentPlacement.Side.BELOW, place(0, 100, 100, 300, 300, 200, false));
+        assertArrayEquals(new int[]{0, 320}, out);
+    }
+
+    @Test
+    public void goesAboveWhenBelowIsTooShort() {
+        assertEquals(ComponentPlacement.Side.ABOVE, place(400, 1700, 600, 1900, 300, 200, false));
+        assertArrayEquals(new int[]{350, 1480}, out);
+    }
+
+    @Test
+    public void goesToEndThenStartWhenCutoutFillsHeight() {
+        assertEquals(ComponentPlacement.Side.END, place(100, 0, 300, 2000, 300, 200, false));
+        assertArrayEquals(new int[]{310, 900}, out);
+        assertEquals(ComponentPlacement.Side.START, place(600, 0, 800, 2000, 300, 200, false));
+        assertArrayEquals(new int[]{290, 900}, out);
+    }
+
+    @Test
+    public void endIsLeftInRtl() {
+        assertEquals(ComponentPlacement.Side.END, place(600, 0, 800, 2000, 300, 200, true));
+        assertArrayEquals(new int[]{290, 900}, out);
+    }
+
+    @Test
+    public void centersWhenNoSideFits() {
+        assertEquals(ComponentPlacement.Side.CENTER, place(0, 0, 1000, 2000, 300, 200, false));
+        assertArrayEquals(new int[]{350, 900}, out);
+        assertEquals(ComponentPlacement.Side.CENTER, place(0, 0, 1000, 2000, 1200, 200, false));
+        assertArrayEquals(new int[]{0, 900}, out);
+    }
+
+    private ComponentPlacement.Side place(float left, float top, float right, float bottom, int width, int height, boolean rtl) {
+        return ComponentPlacement.place(left, top, right, bottom, width, height, WIDTH, HEIGHT, 10, 20, rtl, out);
+    }
+}
@@ -0,0 +1,88 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.RectF;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 抠出形状只在目标区域或参数变化后重新计算
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class CutoutShapeTest {
+    private View targetView;
+    private GuideTarget target;
+
+    @Before
+    public void setUp() {
+        targetView = new View(RuntimeEnvironment.application);
+        targetView.layout(0, 0, 30, 40);
+        target = new GuideTarget.Builder(targetView).setTargetPadding(1).build();
+        target.updateRect();
+    }
+
+    @Test
+    public void geometryIsCachedUntilTargetMoves() {
+        CountingShape shape = new CountingShape();
+        target.setCutoutShape(shape);
+        target.updateCutout();
+        target.updateCutout();
+        assertEquals(1, shape.count);
+
+        //区域没有变化
+        target.trackRect();
+        target.updateCutout();
+        assertEquals(1, shape.count);
+
+        targetView.layout(10, 0, 40, 40);
+        target.trackRect();
+        target.updateCutout();
+        assertEquals(2, shape.count);
+
+        target.setTargetPadding(2);
+        target.updateCutout();
+        assertEquals(3, shape.count);
+    }
+
+    @Test
+    public void roundUsesHalfDiagonalPlusPadding() {
+        target.setTargetShape(GuideMaskView.TargetShape.Round);
+        target.updateCutout();
+        assertEquals(new RectF(15 - 26, 20 - 26, 15 + 26, 20 + 26), target.cutoutRectF);
+        assertEquals(26, target.cutoutRx, 0);
+    }
+
+    @Test
+    public void cornerRadiiUseAverageRadiusForTransitions() {
+        target.setCutoutShape(CutoutShapes.cornerRadii(0, 4, 8, 12));
+        target.updateCutout();
+        assertEquals(new RectF(-1, -1, 31, 41), target.cutoutRectF);
+        assertEquals(6, target.cutoutRx, 0);
+    }
+
+    @Test
+    public void targetShapeReplacesCustomShape() {
+        target.setCutoutShape(CutoutShapes.cornerRadii(1, 2, 3, 4));
+        target.setTargetShape(GuideMaskView.TargetShape.Oval);
+        assertSame(CutoutShapes.OVAL, target.getCutoutShape());
+    }
+
+    private static class CountingShape implements CutoutShape {
+        int count;
+
+        @Override
+        public void compute(GuideTarget target, RectF targetRect, Geometry geometry) {
+            count++;
+            CutoutShapes.ROUND_RECTANGLE.compute(target, targetRect, geometry);
+        }
+    }
+}
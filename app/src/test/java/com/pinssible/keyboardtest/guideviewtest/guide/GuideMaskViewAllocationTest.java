@@ -0,0 +1,127 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.Canvas;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * onDraw在第一次布局之后不能再分配对象,包括每帧都重新生成蒙层的情况
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GuideMaskViewAllocationTest {
+    private static final int WARM_UP_FRAMES = 100;
+    private static final int FRAMES = 1000;
+
+    private FrameLayout rootView;
+    private View targetView;
+    private com.sun.management.ThreadMXBean threadBean;
+    private long measureOverhead;
+
+    @Before
+    public void setUp() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        //部分JDK读取分配字节数本身会分配数组
+        long first = allocatedBytes();
+        measureOverhead = allocatedBytes() - first;
+
+        rootView = new FrameLayout(RuntimeEnvironment.application);
+        targetView = new View(RuntimeEnvironment.application);
+        rootView.addView(targetView);
+        rootView.layout(0, 0, 1080, 1920);
+        targetView.layout(100, 200, 300, 400);
+    }
+
+    @Test
+    public void clipPathOnDrawDoesNotAllocate() {
+        assertNoAllocation(GuideMaskView.RenderMode.CLIP_PATH);
+    }
+
+    @Test
+    public void bitmapOnDrawDoesNotAllocate() {
+        assertNoAllocation(GuideMaskView.RenderMode.BITMAP);
+    }
+
+    @Test
+    public void hardwareLayerOnDrawDoesNotAllocate() {
+        assertNoAllocation(GuideMaskView.RenderMode.HARDWARE_LAYER);
+    }
+
+    @Test
+    public void autoOnDrawDoesNotAllocate() {
+        assertNoAllocation(GuideMaskView.RenderMode.AUTO);
+    }
+
+    /**
+     * 每帧都重新生成蒙层,BITMAP重新生成时绘制到自己的Bitmap上,
+     * Robolectric的ShadowCanvas会记录绘制内容,只在设备上由基准测试覆盖
+     */
+    @Test
+    public void clipPathRebuildDoesNotAllocate() {
+        assertNoAllocation(GuideMaskView.RenderMode.CLIP_PATH, true);
+    }
+
+    @Test
+    public void hardwareLayerRebuildDoesNotAllocate() {
+        assertNoAllocation(GuideMaskView.RenderMode.HARDWARE_LAYER, true);
+    }
+
+    @Test
+    public void autoRebuildDoesNotAllocate() {
+        assertNoAllocation(GuideMaskView.RenderMode.AUTO, true);
+    }
+
+    private void assertNoAllocation(GuideMaskView.RenderMode renderMode) {
+        assertNoAllocation(renderMode, false);
+    }
+
+    /**
+     * @param rebuild 每帧调用invalidateMask,否则只测复用缓存时的绘制
+     */
+    private void assertNoAllocation(GuideMaskView.RenderMode renderMode, boolean rebuild) {
+        for (GuideMaskView.TargetShape shape : GuideMaskView.TargetShape.values()) {
+            GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                    .setRenderMode(renderMode)
+                    .setTargetShape(shape)
+                    .build();
+            maskView.reset();
+            Canvas canvas = new NoOpCanvas();
+            for (int i = 0; i < WARM_UP_FRAMES; i++) {
+                if (rebuild) {
+                    maskView.invalidateMask();
+                }
+                maskView.onDraw(canvas);
+            }
+
+            long before = allocatedBytes();
+            for (int i = 0; i < FRAMES; i++) {
+                if (rebuild) {
+                    maskView.invalidateMask();
+                }
+                maskView.onDraw(canvas);
+            }
+            long allocated = allocatedBytes() - before - measureOverhead;
+            assertEquals(renderMode + "/" + shape + (rebuild ? " rebuild" : "") + " allocated " + allocated + " bytes",
+                    0, allocated);
+        }
+    }
+
+    private long allocatedBytes() {
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
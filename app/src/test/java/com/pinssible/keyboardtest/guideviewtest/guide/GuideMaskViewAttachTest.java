@@ -0,0 +1,75 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 显示蒙版时对rootView布局的影响以及Component的直接摆放
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GuideMaskViewAttachTest {
+    private FrameLayout rootView;
+    private View targetView;
+
+    @Before
+    public void setUp() {
+        rootView = new FrameLayout(RuntimeEnvironment.application);
+        targetView = new View(RuntimeEnvironment.application);
+        rootView.addView(targetView);
+        rootView.layout(0, 0, 1080, 1920);
+        targetView.layout(100, 200, 300, 400);
+    }
+
+    @Test
+    public void overlayModeDoesNotRelayoutRoot() {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setAttachMode(GuideMaskView.AttachMode.OVERLAY)
+                .build();
+        maskView.attachToRoot();
+        assertFalse(rootView.isLayoutRequested());
+        assertEquals(1, rootView.getChildCount());
+        assertEquals(1080, maskView.getWidth());
+        assertEquals(1920, maskView.getHeight());
+
+        maskView.detachFromRoot();
+        assertFalse(rootView.isLayoutRequested());
+    }
+
+    @Test
+    public void childModeAddsMaskToRoot() {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .build();
+        maskView.attachToRoot();
+        assertEquals(maskView, rootView.getChildAt(rootView.getChildCount() - 1));
+        assertTrue(rootView.isLayoutRequested());
+    }
+
+    @Test
+    public void layoutPassPlacesComponentsAtTheirAnchors() {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .build();
+        View attachedView = new View(RuntimeEnvironment.application);
+        maskView.addComponent(new GuideComponent(attachedView, maskView, GuideComponent.ComponentDirection.RIGHT_BOTTOM, 10, 20));
+        assertEquals(110, attachedView.getLeft());
+        assertEquals(420, attachedView.getTop());
+
+        targetView.layout(100, 500, 300, 700);
+        maskView.reset();
+        maskView.measure(0, 0);
+        maskView.layout(0, 0, 1080, 1920);
+        assertEquals(110, attachedView.getLeft());
+        assertEquals(720, attachedView.getTop());
+    }
+}
@@ -0,0 +1,242 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.Canvas;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 蒙版绘制以及Component摆放的JVM基准测试,统计ns/op以及每次操作分配的字节数写入app/build/reports/guide-benchmark.txt,
+ * 并与app/benchmark-baseline.properties中的基准比较,超出容差时失败
+ * <p>
+ * 默认跳过,运行方式:
+ * ./gradlew testDebugUnitTest --tests '*GuideMaskViewBenchmark' -Pbenchmark
+ * 加上-PbenchmarkRecord时把本次结果写到app/build/reports/guide-benchmark-baseline.properties,
+ * 确认后手动合并到基准文件,基准文件中的注释以及固定的条目不会被覆盖
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GuideMaskViewBenchmark {
+    private static final int WARM_UP = 2000;
+    private static final int ITERATIONS = 20000;
+    private static final float DEFAULT_TOLERANCE = 0.5f; //允许比基准慢50%,JVM计时的抖动较大
+
+    private FrameLayout rootView;
+    private View targetView;
+    private com.sun.management.ThreadMXBean threadBean;
+    private final Canvas canvas = new NoOpCanvas();
+    //名称 -> {ns/op, 全部迭代分配的总字节数}
+    private final Map<String, long[]> results = new TreeMap<>();
+    private long measureOverhead;
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("guide.benchmark"));
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        //部分JDK读取分配字节数本身会分配数组
+        long first = allocatedBytes();
+        measureOverhead = allocatedBytes() - first;
+
+        MaskBitmapPool.clear();
+        //与release包一致,不输出诊断日志
+        GuideDiagnostics.setLogger(null);
+        rootView = new FrameLayout(RuntimeEnvironment.application);
+        targetView = new View(RuntimeEnvironment.application);
+        rootView.addView(targetView);
+        rootView.layout(0, 0, 1080, 1920);
+        targetView.layout(100, 200, 300, 400);
+    }
+
+    @After
+    public void tearDown() {
+        GuideDiagnostics.setLogger(GuideDiagnostics.ENABLED ? GuideLogger.LOGCAT : GuideLogger.NONE);
+    }
+
+    @Test
+    public void benchmark() throws IOException {
+        for (GuideMaskView.TargetShape shape : GuideMaskView.TargetShape.values()) {
+            benchmarkDrawMask(shape, GuideMaskView.RenderMode.CLIP_PATH, false);
+            benchmarkDrawMask(shape, GuideMaskView.RenderMode.BITMAP, false);
+            benchmarkDrawMask(shape, GuideMaskView.RenderMode.BITMAP, true);
+        }
+        benchmarkReset();
+        for (GuideComponent.ComponentDirection direction : GuideComponent.ComponentDirection.values()) {
+            benchmarkAddComponent(direction);
+        }
+        report();
+    }
+
+    /**
+     * @param rebuild 每帧都重新生成蒙层,否则只测复用缓存时的绘制
+     */
+    private void benchmarkDrawMask(GuideMaskView.TargetShape shape, GuideMaskView.RenderMode renderMode, final boolean rebuild) {
+        final GuideMaskView maskView = newMaskView(renderMode, shape);
+        measure("drawMask." + shape + "." + renderMode + (rebuild ? ".rebuild" : ""), new Runnable() {
+            @Override
+            public void run() {
+                if (rebuild) {
+                    maskView.invalidateMask();
+                }
+                maskView.onDraw(canvas);
+            }
+        });
+    }
+
+    private void benchmarkReset() {
+        final GuideMaskView maskView = newMaskView(GuideMaskView.RenderMode.BITMAP, GuideMaskView.TargetShape.Round_Rectangle);
+        measure("reset", new Runnable() {
+            @Override
+            public void run() {
+                maskView.reset();
+            }
+        });
+    }
+
+    private void benchmarkAddComponent(GuideComponent.ComponentDirection direction) {
+        final GuideMaskView maskView = newMaskView(GuideMaskView.RenderMode.CLIP_PATH, GuideMaskView.TargetShape.Round_Rectangle);
+        View attachedView = new View(RuntimeEnvironment.application);
+        final GuideComponent component = new GuideComponent(attachedView, maskView, direction, 10, 20);
+        measure("addComponent." + direction, new Runnable() {
+            @Override
+            public void run() {
+                maskView.addComponent(component);
+                maskView.removeComponent(component);
+            }
+        });
+    }
+
+    private GuideMaskView newMaskView(GuideMaskView.RenderMode renderMode, GuideMaskView.TargetShape shape) {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setRenderMode(renderMode)
+                .setTargetShape(shape)
+                .build();
+        maskView.reset();
+        return maskView;
+    }
+
+    private void measure(String name, Runnable op) {
+        for (int i = 0; i < WARM_UP; i++) {
+            op.run();
+        }
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            op.run();
+        }
+        long nsPerOp = (System.nanoTime() - start) / ITERATIONS;
+        long totalBytes = allocatedBytes() - bytesBefore - measureOverhead;
+        results.put(name, new long[]{nsPerOp, Math.max(0, totalBytes)});
+    }
+
+    private long allocatedBytes() {
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * 结果写入build/reports/guide-benchmark.txt,记录模式下另外写出新的基准,否则与基准比较,
+     * 失败信息中带上全部结果.字节数按全部迭代的总数与基准*迭代次数比较,不允许低于1字节/次的分配
+     */
+    private void report() throws IOException {
+        File baselineFile = new File(System.getProperty("guide.benchmark.baseline", "benchmark-baseline.properties"));
+        File reportDir = new File(baselineFile.getAbsoluteFile().getParentFile(), "build/reports");
+        String table = formatResults();
+        writeFile(new File(reportDir, "guide-benchmark.txt"), table);
+        if (Boolean.getBoolean("guide.benchmark.record")) {
+            writeFile(new File(reportDir, "guide-benchmark-baseline.properties"), formatBaseline());
+            return;
+        }
+
+        Properties baseline = new Properties();
+        if (baselineFile.exists()) {
+            InputStream in = new FileInputStream(baselineFile);
+            try {
+                baseline.load(in);
+            } finally {
+                in.close();
+            }
+        }
+        float tolerance = Float.parseFloat(System.getProperty("guide.benchmark.tolerance", String.valueOf(DEFAULT_TOLERANCE)));
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : results.entrySet()) {
+            String name = entry.getKey();
+            String ns = baseline.getProperty(name + ".ns");
+            String bytes = baseline.getProperty(name + ".bytes");
+            if (ns != null && entry.getValue()[0] > Long.parseLong(ns) * (1 + tolerance)) {
+                regressions.add(name + ": " + entry.getValue()[0] + " ns/op, baseline " + ns);
+            }
+            if (bytes != null && entry.getValue()[1] > Long.parseLong(bytes) * ITERATIONS * (1 + tolerance)) {
+                regressions.add(name + ": " + entry.getValue()[1] + " bytes in " + ITERATIONS + " ops, baseline " + bytes + " B/op");
+            }
+        }
+        assertTrue("Benchmark regressions:\n" + join(regressions) + "\nResults:\n" + table, regressions.isEmpty());
+    }
+
+    private String formatResults() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, long[]> entry : results.entrySet()) {
+            builder.append(String.format("%-50s %10d ns/op %10.2f B/op%n", entry.getKey(), entry.getValue()[0],
+                    (double) entry.getValue()[1] / ITERATIONS));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 每次操作的字节数向上取整,有分配时记录的基准不会为0
+     */
+    private String formatBaseline() {
+        StringBuilder builder = new StringBuilder("# Recorded by GuideMaskViewBenchmark, merge into app/benchmark-baseline.properties\n");
+        for (Map.Entry<String, long[]> entry : results.entrySet()) {
+            builder.append(entry.getKey()).append(".ns=").append(entry.getValue()[0]).append('\n');
+            builder.append(entry.getKey()).append(".bytes=").append((entry.getValue()[1] + ITERATIONS - 1) / ITERATIONS).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static void writeFile(File file, String content) throws IOException {
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String join(List<String> lines) {
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines) {
+            builder.append(line).append('\n');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,79 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.Canvas;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.RelativeLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Component变化时只刷新抠出区域与Component区域的并集
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GuideMaskViewInvalidationTest {
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    private GuideMaskView maskView;
+    private GuideComponent component;
+
+    @Before
+    public void setUp() {
+        FrameLayout rootView = new FrameLayout(RuntimeEnvironment.application);
+        View targetView = new View(RuntimeEnvironment.application);
+        rootView.addView(targetView);
+        rootView.layout(0, 0, WIDTH, HEIGHT);
+        targetView.layout(100, 200, 300, 400);
+
+        maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setRenderMode(GuideMaskView.RenderMode.CLIP_PATH)
+                .build();
+        maskView.reset();
+        maskView.onDraw(new Canvas());
+        assertEquals((long) WIDTH * HEIGHT, maskView.getLastFrameInvalidatedPixels());
+
+        View attachedView = new View(RuntimeEnvironment.application);
+        attachedView.setLayoutParams(new RelativeLayout.LayoutParams(100, 50));
+        component = new GuideComponent.Builder(attachedView).build();
+        component.maskView = maskView;
+    }
+
+    @Test
+    public void addComponentInvalidatesCutoutAndComponentOnly() {
+        maskView.addComponent(component);
+        //抠出区域(99,199,301,401)与Component(100,200,200,250)的并集,外扩1像素
+        assertEquals(204 * 204, maskView.getInvalidatedPixels());
+
+        maskView.onDraw(new Canvas());
+        assertEquals(204 * 204, maskView.getLastFrameInvalidatedPixels());
+        assertEquals(0, maskView.getInvalidatedPixels());
+    }
+
+    @Test
+    public void offsetChangeInvalidatesOldAndNewBounds() {
+        maskView.addComponent(component);
+        maskView.onDraw(new Canvas());
+
+        component.setxOffset(-300);
+        //Component从(100,200,200,250)移动到(400,200,500,250),与抠出区域的并集外扩1像素
+        assertEquals(403 * 204, maskView.getInvalidatedPixels());
+    }
+
+    @Test
+    public void removeComponentInvalidatesComponentOnly() {
+        maskView.addComponent(component);
+        maskView.onDraw(new Canvas());
+
+        maskView.removeComponent(component);
+        assertEquals(102 * 52, maskView.getInvalidatedPixels());
+    }
+}
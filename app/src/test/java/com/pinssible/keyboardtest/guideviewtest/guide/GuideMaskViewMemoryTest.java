@@ -0,0 +1,192 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 每个蒙层占用的离屏Bitmap内存
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GuideMaskViewMemoryTest {
+    private static final int WIDTH = 1440;
+    private static final int HEIGHT = 3200;
+
+    private FrameLayout rootView;
+    private View targetView;
+
+    @Before
+    public void setUp() {
+        MaskBitmapPool.clear();
+        rootView = new FrameLayout(RuntimeEnvironment.application);
+        targetView = new View(RuntimeEnvironment.application);
+        rootView.addView(targetView);
+        rootView.layout(0, 0, WIDTH, HEIGHT);
+        targetView.layout(100, 200, 300, 400);
+    }
+
+    @Test
+    public void bitmapModeAllocatesFullScreenBuffer() {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setRenderMode(GuideMaskView.RenderMode.BITMAP)
+                .build();
+        maskView.reset();
+        assertEquals(WIDTH * HEIGHT * 4, maskView.getMaskBufferBytes());
+    }
+
+    @Test
+    public void alpha8BufferUsesOneBytePerPixel() {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setRenderMode(GuideMaskView.RenderMode.BITMAP)
+                .setMaskBufferFormat(GuideMaskView.MaskBufferFormat.ALPHA_8)
+                .build();
+        maskView.reset();
+        assertEquals(Bitmap.Config.ALPHA_8, maskView.getMaskBitmap().getConfig());
+        assertEquals(WIDTH * HEIGHT, maskView.getMaskBufferBytes());
+    }
+
+    @Test
+    public void scaledBufferShrinksWithBothDimensions() {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setRenderMode(GuideMaskView.RenderMode.BITMAP)
+                .setMaskBufferFormat(GuideMaskView.MaskBufferFormat.ALPHA_8)
+                .setMaskBufferScale(0.5f)
+                .build();
+        maskView.reset();
+        assertEquals(WIDTH / 2, maskView.getMaskBitmap().getWidth());
+        assertEquals(WIDTH / 2 * HEIGHT / 2, maskView.getMaskBufferBytes());
+    }
+
+    @Test
+    public void clipPathModeAllocatesNoBuffer() {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setRenderMode(GuideMaskView.RenderMode.CLIP_PATH)
+                .build();
+        maskView.reset();
+        assertEquals(0, maskView.getMaskBufferBytes());
+    }
+
+    @Test
+    public void resetKeepsBufferWhenRootSizeIsUnchanged() {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setRenderMode(GuideMaskView.RenderMode.BITMAP)
+                .build();
+        maskView.reset();
+        Bitmap buffer = maskView.getMaskBitmap();
+        maskView.reset();
+        maskView.reset();
+        assertSame(buffer, maskView.getMaskBitmap());
+    }
+
+    @Test
+    public void releasedBufferIsReusedByNextGuide() {
+        GuideMaskView first = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setRenderMode(GuideMaskView.RenderMode.BITMAP)
+                .build();
+        first.reset();
+        Bitmap buffer = first.getMaskBitmap();
+        first.setRenderMode(GuideMaskView.RenderMode.CLIP_PATH);
+        assertEquals(WIDTH * HEIGHT * 4, MaskBitmapPool.getPooledBytes());
+
+        GuideMaskView second = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setRenderMode(GuideMaskView.RenderMode.BITMAP)
+                .build();
+        assertSame(buffer, second.getMaskBitmap());
+        assertEquals(0, MaskBitmapPool.getPooledBytes());
+    }
+
+    @Test
+    public void multipleTargetsShareOneBuffer() {
+        View secondTarget = new View(RuntimeEnvironment.application);
+        View thirdTarget = new View(RuntimeEnvironment.application);
+        rootView.addView(secondTarget);
+        rootView.addView(thirdTarget);
+        secondTarget.layout(500, 600, 700, 800);
+        thirdTarget.layout(900, 1000, 1100, 1200);
+
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setRenderMode(GuideMaskView.RenderMode.BITMAP)
+                .addTarget(new GuideTarget.Builder(secondTarget).setTargetShape(GuideMaskView.TargetShape.Round).build())
+                .addTarget(new GuideTarget.Builder(thirdTarget).setTargetShape(GuideMaskView.TargetShape.Oval).build())
+                .build();
+        maskView.reset();
+        assertEquals(3, maskView.getTargetCount());
+        assertEquals(WIDTH * HEIGHT * 4, maskView.getMaskBufferBytes());
+    }
+
+    @Test
+    public void hiddenUiReleasesBufferUntilNextDraw() {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setRenderMode(GuideMaskView.RenderMode.BITMAP)
+                .build();
+        maskView.reset();
+        maskView.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        assertEquals(0, maskView.getMaskBufferBytes());
+        assertEquals(0, MaskBitmapPool.getPooledBytes());
+
+        maskView.onDraw(new Canvas(Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888)));
+        assertEquals(WIDTH * HEIGHT * 4, maskView.getMaskBufferBytes());
+    }
+
+    @Test
+    public void runningLowDrawsWithoutBufferUntilReset() {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setRenderMode(GuideMaskView.RenderMode.BITMAP)
+                .build();
+        maskView.reset();
+        maskView.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        maskView.onDraw(new Canvas(Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888)));
+        assertEquals(0, maskView.getMaskBufferBytes());
+        assertNotEquals(GuideMaskView.RenderMode.BITMAP, maskView.getResolvedRenderMode());
+
+        maskView.reset();
+        assertEquals(WIDTH * HEIGHT * 4, maskView.getMaskBufferBytes());
+    }
+
+    @Test
+    public void dismissReleasesBufferAndDetaches() {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setRenderMode(GuideMaskView.RenderMode.BITMAP)
+                .build();
+        maskView.reset();
+        maskView.attachToRoot();
+        maskView.dismiss();
+        assertNull(maskView.getParent());
+        assertEquals(0, maskView.getMaskBufferBytes());
+        assertEquals(WIDTH * HEIGHT * 4, MaskBitmapPool.getPooledBytes());
+    }
+
+    @Test
+    public void dismissBeforeFirstLayoutCancelsPendingShow() {
+        FrameLayout unlaidRoot = new FrameLayout(RuntimeEnvironment.application);
+        View unlaidTarget = new View(RuntimeEnvironment.application);
+        unlaidRoot.addView(unlaidTarget);
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, unlaidRoot, unlaidTarget)
+                .setRenderMode(GuideMaskView.RenderMode.BITMAP)
+                .build();
+        new GuideComponent(new View(RuntimeEnvironment.application), maskView, GuideComponent.ComponentDirection.RIGHT_BOTTOM, 0, 0)
+                .showOnMaskView(maskView);
+        maskView.dismiss();
+
+        unlaidRoot.layout(0, 0, WIDTH, HEIGHT);
+        unlaidTarget.layout(100, 200, 300, 400);
+        unlaidTarget.getViewTreeObserver().dispatchOnGlobalLayout();
+        assertNull(maskView.getParent());
+        assertEquals(0, maskView.getMaskBufferBytes());
+    }
+}
@@ -0,0 +1,120 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * {@link GuideMetricsListener}回调
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GuideMaskViewMetricsTest {
+    private FrameLayout rootView;
+    private View targetView;
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() {
+        MaskBitmapPool.clear();
+        rootView = new FrameLayout(RuntimeEnvironment.application);
+        targetView = new View(RuntimeEnvironment.application);
+        rootView.addView(targetView);
+        rootView.layout(0, 0, 1080, 1920);
+        targetView.layout(100, 200, 300, 400);
+        listener = new RecordingListener();
+    }
+
+    @Test
+    public void reportsResetDrawAndBufferBytes() {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setMetricsListener(listener)
+                .setRenderMode(GuideMaskView.RenderMode.BITMAP)
+                .build();
+        assertEquals(1080 * 1920 * 4, listener.bufferBytes);
+
+        maskView.reset();
+        assertEquals(1, listener.resets);
+
+        maskView.onDraw(new Canvas(Bitmap.createBitmap(1080, 1920, Bitmap.Config.ARGB_8888)));
+        assertEquals(1, listener.draws);
+        assertSame(GuideMaskView.RenderMode.BITMAP, listener.renderMode);
+
+        maskView.setRenderMode(GuideMaskView.RenderMode.CLIP_PATH);
+        assertEquals(0, listener.bufferBytes);
+    }
+
+    @Test
+    public void countsFullAndPartialInvalidations() {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setMetricsListener(listener)
+                .build();
+        listener.fullInvalidations = 0;
+        listener.partialInvalidations = 0;
+
+        maskView.setMaskColor(0x80000000);
+        assertEquals(1, listener.fullInvalidations);
+
+        GuideComponent component = new GuideComponent(new View(RuntimeEnvironment.application), maskView, GuideComponent.ComponentDirection.LEFT_TOP, 0, 0);
+        maskView.addComponent(component);
+        assertEquals(1, listener.components);
+        assertEquals(1, listener.partialInvalidations);
+        maskView.removeComponent(component);
+        assertEquals(2, listener.partialInvalidations);
+    }
+
+    private static class RecordingListener implements GuideMetricsListener {
+        int draws;
+        int resets;
+        int components;
+        int bufferBytes;
+        int fullInvalidations;
+        int partialInvalidations;
+        GuideMaskView.RenderMode renderMode;
+
+        @Override
+        public void onDrawMask(GuideMaskView maskView, GuideMaskView.RenderMode renderMode, long durationNs) {
+            draws++;
+            this.renderMode = renderMode;
+        }
+
+        @Override
+        public void onMeasure(GuideMaskView maskView, long durationNs) {
+        }
+
+        @Override
+        public void onReset(GuideMaskView maskView, long durationNs) {
+            resets++;
+        }
+
+        @Override
+        public void onAddComponent(GuideMaskView maskView, GuideComponent component, long durationNs) {
+            components++;
+        }
+
+        @Override
+        public void onMaskBufferChanged(GuideMaskView maskView, int bytes) {
+            bufferBytes = bytes;
+        }
+
+        @Override
+        public void onInvalidate(GuideMaskView maskView, boolean full) {
+            if (full) {
+                fullInvalidations++;
+            } else {
+                partialInvalidations++;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 等待TargetView布局后显示Component,多个Component共用一次reset以及一次添加
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GuideMaskViewScheduleTest {
+    private FrameLayout rootView;
+    private View targetView;
+    private GuideMaskView maskView;
+    private int resets;
+
+    @Before
+    public void setUp() {
+        rootView = new FrameLayout(RuntimeEnvironment.application);
+        targetView = new View(RuntimeEnvironment.application);
+        rootView.addView(targetView);
+        //还没有布局,等待布局回调
+        maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setMetricsListener(new GuideMetricsListener() {
+                    @Override
+                    public void onDrawMask(GuideMaskView maskView, GuideMaskView.RenderMode renderMode, long durationNs) {
+                    }
+
+                    @Override
+                    public void onMeasure(GuideMaskView maskView, long durationNs) {
+                    }
+
+                    @Override
+                    public void onReset(GuideMaskView maskView, long durationNs) {
+                        resets++;
+                    }
+
+                    @Override
+                    public void onAddComponent(GuideMaskView maskView, GuideComponent component, long durationNs) {
+                    }
+
+                    @Override
+                    public void onMaskBufferChanged(GuideMaskView maskView, int bytes) {
+                    }
+
+                    @Override
+                    public void onInvalidate(GuideMaskView maskView, boolean full) {
+                    }
+                })
+                .build();
+    }
+
+    @Test
+    public void componentsShareOneResetAndOneAttach() {
+        GuideComponent first = component();
+        GuideComponent second = component();
+        GuideComponent third = component();
+        first.showOnMaskView(maskView);
+        second.showOnMaskView(maskView);
+        third.showOnMaskView(maskView);
+        //重复显示不会重复添加
+        first.show();
+
+        layoutTarget();
+        assertEquals(1, resets);
+        assertEquals(2, rootView.getChildCount());
+        assertSame(maskView, rootView.getChildAt(1));
+        assertEquals(3, maskView.getChildCount());
+
+        first.show();
+        layoutTarget();
+        assertEquals(1, resets);
+        assertEquals(3, maskView.getChildCount());
+    }
+
+    @Test
+    public void dismissingAllPendingComponentsCancelsShow() {
+        GuideComponent first = component();
+        GuideComponent second = component();
+        first.showOnMaskView(maskView);
+        second.showOnMaskView(maskView);
+        first.dismiss();
+        second.dismiss();
+
+        layoutTarget();
+        assertEquals(0, resets);
+        assertNull(maskView.getParent());
+        assertEquals(1, rootView.getChildCount());
+    }
+
+    private GuideComponent component() {
+        return new GuideComponent(new View(RuntimeEnvironment.application), maskView, GuideComponent.ComponentDirection.RIGHT_BOTTOM, 0, 0);
+    }
+
+    private void layoutTarget() {
+        rootView.layout(0, 0, 1080, 1920);
+        targetView.layout(100, 200, 300, 400);
+        targetView.getViewTreeObserver().dispatchOnGlobalLayout();
+    }
+}
@@ -0,0 +1,124 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按触摸处理方式以及抠出形状分发触摸
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GuideMaskViewTouchTest {
+    private FrameLayout rootView;
+    private View targetView;
+
+    @Before
+    public void setUp() {
+        rootView = new FrameLayout(RuntimeEnvironment.application);
+        targetView = new View(RuntimeEnvironment.application);
+        rootView.addView(targetView);
+        rootView.layout(0, 0, 1080, 1920);
+        targetView.layout(100, 200, 300, 400);
+    }
+
+    @Test
+    public void cutoutTouchesPassThroughAndOthersAreBlocked() {
+        GuideMaskView maskView = build(GuideMaskView.TouchPolicy.PASS_THROUGH_CUTOUT);
+        assertFalse(touch(maskView, MotionEvent.ACTION_DOWN, 200, 300));
+        assertTrue(touch(maskView, MotionEvent.ACTION_DOWN, 10, 10));
+    }
+
+    @Test
+    public void passThroughAndBlockIgnoreCutout() {
+        assertFalse(touch(build(GuideMaskView.TouchPolicy.PASS_THROUGH), MotionEvent.ACTION_DOWN, 10, 10));
+        assertTrue(touch(build(GuideMaskView.TouchPolicy.BLOCK), MotionEvent.ACTION_DOWN, 200, 300));
+    }
+
+    @Test
+    public void ovalCutoutExcludesBoundsCorners() {
+        GuideMaskView maskView = build(GuideMaskView.TouchPolicy.PASS_THROUGH_CUTOUT);
+        maskView.setTargetShape(GuideMaskView.TargetShape.Oval);
+        assertTrue(maskView.cutoutContains(200, 300));
+        assertFalse(maskView.cutoutContains(102, 202));
+
+        maskView.setTargetShape(GuideMaskView.TargetShape.Round_Rectangle);
+        assertTrue(maskView.cutoutContains(102, 202));
+    }
+
+    @Test
+    public void transitionUsesInterpolatedCorners() {
+        GuideMaskView maskView = build(GuideMaskView.TouchPolicy.PASS_THROUGH_CUTOUT);
+        View toView = new View(RuntimeEnvironment.application);
+        rootView.addView(toView);
+        toView.layout(500, 600, 700, 800);
+        maskView.beginTransition(Collections.singletonList(new GuideTarget.Builder(toView)
+                .setTargetShape(GuideMaskView.TargetShape.Round)
+                .setRoundRadius(50)
+                .build()));
+
+        //圆心(600,700),半径50,外接矩形的角不在抠出区域内
+        maskView.applyTransitionFraction(1f);
+        assertTrue(maskView.cutoutContains(600, 700));
+        assertTrue(maskView.cutoutContains(600, 652));
+        assertFalse(maskView.cutoutContains(553, 653));
+        assertFalse(maskView.cutoutContains(200, 300));
+    }
+
+    @Test
+    public void outsideTapDismissesMask() {
+        GuideMaskView maskView = build(GuideMaskView.TouchPolicy.PASS_THROUGH_CUTOUT);
+        final int[] taps = new int[1];
+        maskView.setDismissOnOutsideTap(true);
+        maskView.setOnOutsideTapListener(new GuideMaskView.OnOutsideTapListener() {
+            @Override
+            public void onOutsideTap(GuideMaskView maskView) {
+                taps[0]++;
+            }
+        });
+        maskView.attachToRoot();
+
+        //拖动不算点击
+        touch(maskView, MotionEvent.ACTION_DOWN, 10, 10);
+        touch(maskView, MotionEvent.ACTION_MOVE, 10, 500);
+        touch(maskView, MotionEvent.ACTION_UP, 10, 500);
+        assertEquals(0, taps[0]);
+
+        touch(maskView, MotionEvent.ACTION_DOWN, 10, 10);
+        touch(maskView, MotionEvent.ACTION_UP, 11, 11);
+        assertEquals(1, taps[0]);
+        assertNull(maskView.getParent());
+    }
+
+    private GuideMaskView build(GuideMaskView.TouchPolicy touchPolicy) {
+        GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setTouchPolicy(touchPolicy)
+                .build();
+        maskView.reset();
+        maskView.layout(0, 0, 1080, 1920);
+        return maskView;
+    }
+
+    private static boolean touch(View view, int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(0, 0, action, x, y, 0);
+        try {
+            return view.dispatchTouchEvent(event);
+        } finally {
+            event.recycle();
+        }
+    }
+}
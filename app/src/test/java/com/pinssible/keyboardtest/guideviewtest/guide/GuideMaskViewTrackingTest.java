@@ -0,0 +1,91 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 目标滚动或者平移时跟踪位置,只刷新移动前后的抠出区域
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GuideMaskViewTrackingTest {
+    private FrameLayout scrollingView;
+    private View targetView;
+    private GuideMaskView maskView;
+    private Canvas canvas;
+
+    @Before
+    public void setUp() {
+        MaskBitmapPool.clear();
+        FrameLayout rootView = new FrameLayout(RuntimeEnvironment.application);
+        scrollingView = new FrameLayout(RuntimeEnvironment.application);
+        targetView = new View(RuntimeEnvironment.application);
+        rootView.addView(scrollingView);
+        scrollingView.addView(targetView);
+        rootView.layout(0, 0, 1080, 1920);
+        scrollingView.layout(0, 0, 1080, 1920);
+        targetView.layout(100, 200, 300, 400);
+
+        maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView)
+                .setRenderMode(GuideMaskView.RenderMode.BITMAP)
+                .setTrackTargets(true)
+                .build();
+        maskView.reset();
+        canvas = new Canvas(Bitmap.createBitmap(1080, 1920, Bitmap.Config.ARGB_8888));
+        maskView.onDraw(canvas);
+    }
+
+    @Test
+    public void targetRectIsRelativeToRootView() {
+        scrollingView.layout(0, 100, 1080, 2020);
+        maskView.reset();
+        assertEquals(300, maskView.getTarget(0).targetRectF.top, 0);
+    }
+
+    @Test
+    public void scrollInvalidatesOnlyMovedCutout() {
+        Bitmap buffer = maskView.getMaskBitmap();
+        scrollingView.scrollTo(0, 50);
+
+        assertTrue(maskView.trackTargets());
+        assertEquals(150, maskView.getTarget(0).targetRectF.top, 0);
+        //(99,199,301,401)与(99,149,301,351)的并集加上边缘
+        assertEquals(204 * 254, maskView.getInvalidatedPixels());
+        assertSame(buffer, maskView.getMaskBitmap());
+
+        maskView.onDraw(canvas);
+        assertFalse(maskView.trackTargets());
+        assertEquals(0, maskView.getInvalidatedPixels());
+    }
+
+    @Test
+    public void componentFollowsTargetByTranslation() {
+        View attachedView = new View(RuntimeEnvironment.application);
+        maskView.addComponent(new GuideComponent(attachedView, maskView, GuideComponent.ComponentDirection.LEFT_TOP, 0, 0));
+        int left = attachedView.getLeft();
+        int top = attachedView.getTop();
+
+        targetView.setTranslationX(30);
+        scrollingView.scrollTo(0, 50);
+        maskView.trackTargets();
+
+        assertEquals(left, attachedView.getLeft());
+        assertEquals(top, attachedView.getTop());
+        assertEquals(30, attachedView.getTranslationX(), 0);
+        assertEquals(-50, attachedView.getTranslationY(), 0);
+    }
+}
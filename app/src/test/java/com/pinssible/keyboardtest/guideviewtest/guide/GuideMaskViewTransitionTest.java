@@ -0,0 +1,68 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.Rect;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 切换动画每帧只刷新前后两帧抠出区域的并集
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GuideMaskViewTransitionTest {
+    private GuideMaskView maskView;
+    private View toView;
+
+    @Before
+    public void setUp() {
+        FrameLayout rootView = new FrameLayout(RuntimeEnvironment.application);
+        View fromView = new View(RuntimeEnvironment.application);
+        toView = new View(RuntimeEnvironment.application);
+        rootView.addView(fromView);
+        rootView.addView(toView);
+        rootView.layout(0, 0, 1080, 1920);
+        fromView.layout(100, 200, 300, 400);
+        toView.layout(500, 600, 700, 800);
+
+        maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, fromView)
+                .setRenderMode(GuideMaskView.RenderMode.CLIP_PATH)
+                .build();
+        maskView.reset();
+    }
+
+    @Test
+    public void invalidatesUnionOfPreviousAndCurrentCutout() {
+        //Round_Rectangle默认padding为1: (99,199,301,401) -> (499,599,701,801)
+        maskView.beginTransition(Collections.singletonList(new GuideTarget.Builder(toView).build()));
+
+        maskView.applyTransitionFraction(0.5f);
+        assertEquals(new Rect(98, 198, 502, 602), maskView.mTransitionDirtyRect);
+
+        maskView.applyTransitionFraction(1f);
+        assertEquals(new Rect(298, 398, 702, 802), maskView.mTransitionDirtyRect);
+    }
+
+    @Test
+    public void morphsShapeWithinTargetBounds() {
+        GuideTarget round = new GuideTarget.Builder(toView)
+                .setTargetShape(GuideMaskView.TargetShape.Round)
+                .setRoundRadius(50)
+                .build();
+        maskView.beginTransition(Collections.singletonList(round));
+
+        maskView.applyTransitionFraction(1f);
+        //圆心(600,700),半径50
+        assertEquals(new Rect(98, 198, 651, 751), maskView.mTransitionDirtyRect);
+    }
+}
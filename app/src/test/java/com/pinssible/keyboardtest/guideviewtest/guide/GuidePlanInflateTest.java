@@ -0,0 +1,80 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.Color;
+import android.util.DisplayMetrics;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 缓存的引导在inflate时按当前的density以及主题换算尺寸和颜色
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GuidePlanInflateTest {
+    private static final int TARGET_ID = 0x7f0a0001;
+
+    private DisplayMetrics metrics;
+    private float originalDensity;
+    private FrameLayout rootView;
+    private GuidePlan plan;
+
+    @Before
+    public void setUp() {
+        metrics = RuntimeEnvironment.application.getResources().getDisplayMetrics();
+        originalDensity = metrics.density;
+        rootView = new FrameLayout(RuntimeEnvironment.application);
+        View targetView = new View(RuntimeEnvironment.application);
+        targetView.setId(TARGET_ID);
+        rootView.addView(targetView);
+        rootView.layout(0, 0, 1080, 1920);
+        targetView.layout(100, 200, 300, 400);
+
+        GuidePlan.Dimension zero = new GuidePlan.Dimension(0, false);
+        GuidePlan.Target target = new GuidePlan.Target(TARGET_ID, GuideMaskView.TargetShape.Round_Rectangle,
+                new GuidePlan.Dimension(5, false), new GuidePlan.Dimension(4, true), zero, zero, zero);
+        GuidePlan.Component component = new GuidePlan.Component(android.R.layout.simple_list_item_1,
+                GuideComponent.ComponentDirection.RIGHT_BOTTOM, new GuidePlan.Dimension(10, true), new GuidePlan.Dimension(16, false), 0);
+        GuidePlan.Step step = new GuidePlan.Step(Collections.singletonList(target), Collections.singletonList(component));
+        plan = new GuidePlan(0, android.R.color.black, GuideMaskView.RenderMode.AUTO, 0, false, Collections.singletonList(step));
+    }
+
+    @After
+    public void tearDown() {
+        metrics.density = originalDensity;
+    }
+
+    @Test
+    public void dimensionsFollowCurrentDensity() {
+        metrics.density = 1f;
+        assertInflated(plan.inflate(rootView), 4, 10);
+
+        //同一个plan在density变化后重新inflate
+        metrics.density = 2f;
+        assertInflated(plan.inflate(rootView), 8, 20);
+    }
+
+    @Test
+    public void colorResourceIsResolvedAtInflate() {
+        assertEquals(Color.BLACK, plan.inflate(rootView).getMaskView().getMaskColor());
+    }
+
+    private static void assertInflated(GuideSequence sequence, float padding, int xOffset) {
+        GuideStep step = sequence.steps.get(0);
+        assertEquals(5, step.getTargets().get(0).getTargetRadius(), 0);
+        assertEquals(padding, step.getTargets().get(0).getTargetPadding(), 0);
+        assertEquals(xOffset, step.getComponents().get(0).xOffset);
+        assertEquals(16, step.getComponents().get(0).yOffset);
+    }
+}
@@ -0,0 +1,212 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.Collections;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 后台准备的结果在主线程回调,提前inflate的View被蒙版使用,取消后不再回调也不再抛出错误
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GuidePreparerTest {
+    private static final int XML_RES = 0x7f0f0001;
+    //不存在的资源,解析时抛出Resources.NotFoundException
+    private static final int MISSING_XML_RES = 0x7f0f00ff;
+    private static final int TARGET_ID = 0x7f0a0001;
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    //在当前线程执行,回调仍然通过主线程Handler
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private CountingContext context;
+    private FrameLayout rootView;
+    private GuideSequence ready;
+    private Looper readyLooper;
+
+    @Before
+    public void setUp() {
+        MaskBitmapPool.clear();
+        GuidePlan.clearCache();
+        context = new CountingContext(RuntimeEnvironment.application);
+        rootView = new FrameLayout(context);
+        View targetView = new View(context);
+        targetView.setId(TARGET_ID);
+        rootView.addView(targetView);
+        rootView.layout(0, 0, WIDTH, HEIGHT);
+        targetView.layout(100, 200, 300, 400);
+        ShadowLooper.pauseMainLooper();
+    }
+
+    @After
+    public void tearDown() {
+        ShadowLooper.unPauseMainLooper();
+        GuidePlan.clearCache();
+        MaskBitmapPool.clear();
+    }
+
+    @Test
+    public void readyCallbackArrivesOnMainLooper() {
+        putPlan(GuideMaskView.RenderMode.AUTO);
+        GuidePreparer.prepare(rootView, XML_RES, DIRECT, listener());
+        assertNull(ready);
+
+        ShadowLooper.runUiThreadTasks();
+        assertNotNull(ready);
+        assertSame(Looper.getMainLooper(), readyLooper);
+    }
+
+    @Test
+    public void preinflatedViewsAreConsumed() {
+        putPlan(GuideMaskView.RenderMode.AUTO);
+        GuidePreparer.prepare(rootView, XML_RES, DIRECT, listener());
+        ShadowLooper.runUiThreadTasks();
+
+        assertNotNull(ready);
+        //Component全部在后台inflate,UI线程的LayoutInflater没有被使用
+        assertEquals(0, context.inflater.inflations);
+    }
+
+    @Test
+    public void cancelSuppressesCallback() {
+        putPlan(GuideMaskView.RenderMode.AUTO);
+        GuidePreparer preparer = GuidePreparer.prepare(rootView, XML_RES, DIRECT, listener());
+        preparer.cancel();
+        ShadowLooper.runUiThreadTasks();
+
+        assertTrue(preparer.isCanceled());
+        assertNull(ready);
+    }
+
+    @Test
+    public void bitmapModePrewarmsMaskBuffer() {
+        putPlan(GuideMaskView.RenderMode.BITMAP);
+        GuidePreparer.prepare(rootView, XML_RES, DIRECT, listener());
+        assertEquals(WIDTH * HEIGHT * 4, MaskBitmapPool.getPooledBytes());
+    }
+
+    @Test
+    public void autoModeDoesNotPrewarm() {
+        //AUTO不使用蒙层Bitmap,提前创建只会浪费内存
+        putPlan(GuideMaskView.RenderMode.AUTO);
+        GuidePreparer.prepare(rootView, XML_RES, DIRECT, listener());
+        assertEquals(0, MaskBitmapPool.getPooledBytes());
+    }
+
+    @Test
+    public void lowRamDeviceDoesNotPrewarm() {
+        //预先创建发生在任何蒙版创建之前,同样需要知道是否为低内存设备
+        ActivityManager activityManager = (ActivityManager) RuntimeEnvironment.application.getSystemService(Context.ACTIVITY_SERVICE);
+        Shadows.shadowOf(activityManager).setIsLowRamDevice(true);
+        putPlan(GuideMaskView.RenderMode.BITMAP);
+        GuidePreparer.prepare(rootView, XML_RES, DIRECT, listener());
+        assertTrue(MaskBitmapPool.isLowRamDevice());
+        assertEquals(0, MaskBitmapPool.getPooledBytes());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void failureIsThrownOnMainLooper() {
+        GuidePreparer.prepare(rootView, MISSING_XML_RES, DIRECT, listener());
+        ShadowLooper.runUiThreadTasks();
+    }
+
+    @Test
+    public void canceledFailureIsDropped() {
+        GuidePreparer preparer = GuidePreparer.prepare(rootView, MISSING_XML_RES, DIRECT, listener());
+        preparer.cancel();
+        ShadowLooper.runUiThreadTasks();
+        assertNull(ready);
+    }
+
+    private void putPlan(GuideMaskView.RenderMode renderMode) {
+        GuidePlan.Dimension zero = new GuidePlan.Dimension(0, false);
+        GuidePlan.Target target = new GuidePlan.Target(TARGET_ID, GuideMaskView.TargetShape.Round_Rectangle, zero, zero, zero, zero, zero);
+        GuidePlan.Component component = new GuidePlan.Component(android.R.layout.simple_list_item_1,
+                GuideComponent.ComponentDirection.RIGHT_BOTTOM, zero, zero, 0);
+        GuidePlan.Step step = new GuidePlan.Step(Collections.singletonList(target), Collections.singletonList(component));
+        synchronized (GuidePlan.CACHE) {
+            GuidePlan.CACHE.put(XML_RES, new GuidePlan(0x99000000, 0, renderMode, 0, false, Collections.singletonList(step)));
+        }
+    }
+
+    private GuidePreparer.OnGuideReadyListener listener() {
+        return new GuidePreparer.OnGuideReadyListener() {
+            @Override
+            public void onGuideReady(GuideSequence sequence) {
+                ready = sequence;
+                readyLooper = Looper.myLooper();
+            }
+        };
+    }
+
+    /**
+     * UI线程通过LayoutInflater.from获取的inflater,统计inflate次数
+     */
+    private static class CountingContext extends ContextWrapper {
+        final CountingInflater inflater;
+
+        CountingContext(Context base) {
+            super(base);
+            inflater = new CountingInflater(LayoutInflater.from(base), this);
+        }
+
+        @Override
+        public Object getSystemService(String name) {
+            if (Context.LAYOUT_INFLATER_SERVICE.equals(name)) {
+                return inflater;
+            }
+            return super.getSystemService(name);
+        }
+    }
+
+    private static class CountingInflater extends LayoutInflater {
+        private final LayoutInflater delegate;
+        int inflations;
+
+        CountingInflater(LayoutInflater delegate, Context context) {
+            super(context);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public LayoutInflater cloneInContext(Context newContext) {
+            return this;
+        }
+
+        @Override
+        public View inflate(int resource, ViewGroup root, boolean attachToRoot) {
+            inflations++;
+            return delegate.inflate(resource, root, attachToRoot);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 显示状态只在后台读取一次,读取完成前不阻塞,修改合并写入
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GuideRegistryTest {
+    private SharedPreferences preferences;
+    private ScheduledExecutorService executor;
+
+    @Before
+    public void setUp() {
+        preferences = RuntimeEnvironment.application.getSharedPreferences(GuideRegistry.PREFS_NAME, Context.MODE_PRIVATE);
+        preferences.edit().remove(GuideRegistry.KEY_SEEN).commit();
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        ShadowLooper.unPauseMainLooper();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void markSeenIsPersistedAndReloaded() throws Exception {
+        GuideRegistry registry = new GuideRegistry(RuntimeEnvironment.application, executor, 0);
+        drain();
+        assertTrue(registry.shouldShow(3));
+        registry.markSeen(3);
+        registry.markSeen(9);
+        assertFalse(registry.shouldShow(3));
+        drain();
+        assertEquals("802", preferences.getString(GuideRegistry.KEY_SEEN, null));
+
+        GuideRegistry reloaded = new GuideRegistry(RuntimeEnvironment.application, executor, 0);
+        drain();
+        assertFalse(reloaded.shouldShow(3));
+        assertFalse(reloaded.shouldShow(9));
+        assertTrue(reloaded.shouldShow(4));
+    }
+
+    @Test
+    public void writesAreBatchedUntilFlush() throws Exception {
+        GuideRegistry registry = new GuideRegistry(RuntimeEnvironment.application, executor, TimeUnit.HOURS.toMillis(1));
+        registry.markSeen(0);
+        registry.markSeen(1);
+        drain();
+        assertNull(preferences.getString(GuideRegistry.KEY_SEEN, null));
+
+        registry.flush();
+        drain();
+        assertEquals("3", preferences.getString(GuideRegistry.KEY_SEEN, null));
+    }
+
+    @Test
+    public void resetAllowsGuideToShowAgain() throws Exception {
+        GuideRegistry registry = new GuideRegistry(RuntimeEnvironment.application, executor, 0);
+        registry.markSeen(2);
+        registry.reset(2);
+        assertTrue(registry.shouldShow(2));
+        drain();
+        assertEquals("", preferences.getString(GuideRegistry.KEY_SEEN, null));
+    }
+
+    @Test
+    public void notLoadedUntilBackgroundReadFinishes() throws Exception {
+        //回调只能通过主线程的消息队列执行
+        ShadowLooper.pauseMainLooper();
+        CountDownLatch block = blockExecutor();
+        GuideRegistry registry = new GuideRegistry(RuntimeEnvironment.application, executor, 0);
+        final boolean[] called = new boolean[1];
+        final Looper[] callbackLooper = new Looper[1];
+        registry.whenLoaded(new Runnable() {
+            @Override
+            public void run() {
+                called[0] = true;
+                callbackLooper[0] = Looper.myLooper();
+            }
+        });
+        //加载完成前立即返回,不阻塞UI线程
+        assertFalse(registry.isLoaded());
+        assertFalse(registry.shouldShow(0));
+
+        block.countDown();
+        drain();
+        assertTrue(registry.isLoaded());
+        assertTrue(registry.shouldShow(0));
+        assertFalse(called[0]);
+        ShadowLooper.runUiThreadTasks();
+        assertTrue(called[0]);
+        assertSame(Looper.getMainLooper(), callbackLooper[0]);
+    }
+
+    @Test
+    public void whenLoadedRunsImmediatelyAfterLoad() throws Exception {
+        GuideRegistry registry = new GuideRegistry(RuntimeEnvironment.application, executor, 0);
+        drain();
+        final boolean[] called = new boolean[1];
+        registry.whenLoaded(new Runnable() {
+            @Override
+            public void run() {
+                called[0] = true;
+            }
+        });
+        assertTrue(called[0]);
+    }
+
+    @Test
+    public void resetBeforeLoadOverridesStoredState() throws Exception {
+        //引导1以及2已经显示过
+        preferences.edit().putString(GuideRegistry.KEY_SEEN, "6").commit();
+        CountDownLatch block = blockExecutor();
+        GuideRegistry registry = new GuideRegistry(RuntimeEnvironment.application, executor, 0);
+        registry.reset(2);
+        block.countDown();
+        drain();
+        assertFalse(registry.shouldShow(1));
+        assertTrue(registry.shouldShow(2));
+        assertEquals("2", preferences.getString(GuideRegistry.KEY_SEEN, null));
+
+        CountDownLatch blockAll = blockExecutor();
+        GuideRegistry reloaded = new GuideRegistry(RuntimeEnvironment.application, executor, 0);
+        reloaded.resetAll();
+        blockAll.countDown();
+        drain();
+        assertTrue(reloaded.shouldShow(1));
+        assertEquals("", preferences.getString(GuideRegistry.KEY_SEEN, null));
+    }
+
+    @Test
+    public void unreadableStateIsTreatedAsEmpty() throws Exception {
+        //旧版本或其他代码用同一个key保存了非字符串的值,getString会抛出ClassCastException
+        preferences.edit().putInt(GuideRegistry.KEY_SEEN, 5).commit();
+        GuideRegistry registry = new GuideRegistry(RuntimeEnvironment.application, executor, 0);
+        final boolean[] called = new boolean[1];
+        registry.whenLoaded(new Runnable() {
+            @Override
+            public void run() {
+                called[0] = true;
+            }
+        });
+        drain();
+        ShadowLooper.runUiThreadTasks();
+        assertTrue(registry.isLoaded());
+        assertTrue(called[0]);
+        assertTrue(registry.shouldShow(0));
+
+        //之后的写入覆盖掉无法读取的值
+        registry.markSeen(0);
+        drain();
+        assertEquals("1", preferences.getString(GuideRegistry.KEY_SEEN, null));
+    }
+
+    @Test
+    public void encodeRoundTrip() {
+        BitSet bits = new BitSet();
+        bits.set(0);
+        bits.set(5);
+        bits.set(64);
+        assertEquals(bits, GuideRegistry.decode(GuideRegistry.encode(bits)));
+        assertTrue(GuideRegistry.decode("not hex").isEmpty());
+    }
+
+    /**
+     * 阻塞后台线程,countDown之前Registry不会加载完成
+     */
+    private CountDownLatch blockExecutor() {
+        final CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        return latch;
+    }
+
+    /**
+     * 等待已经提交到后台线程的任务执行完
+     */
+    private void drain() throws Exception {
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).get();
+    }
+}
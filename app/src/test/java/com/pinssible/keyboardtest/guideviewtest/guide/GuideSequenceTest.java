@@ -0,0 +1,66 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 第一步的Component在start之后立即按计算好的蒙版区域摆放
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class GuideSequenceTest {
+    private FrameLayout rootView;
+    private View targetView;
+
+    @Before
+    public void setUp() {
+        rootView = new FrameLayout(RuntimeEnvironment.application);
+        targetView = new View(RuntimeEnvironment.application);
+        rootView.addView(targetView);
+        rootView.layout(0, 0, 1080, 1920);
+        targetView.layout(100, 200, 300, 400);
+    }
+
+    @Test
+    public void firstStepIsPlacedAgainstResetMask() {
+        for (GuideComponent.ComponentDirection direction : GuideComponent.ComponentDirection.values()) {
+            GuideMaskView maskView = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView).build();
+            View attachedView = newComponentView();
+            GuideSequence sequence = new GuideSequence.Builder(maskView)
+                    .addStep(new GuideStep.Builder()
+                            .addTarget(new GuideTarget.Builder(targetView).build())
+                            .addComponent(new GuideComponent(attachedView, maskView, direction, 10, 20))
+                            .build())
+                    .build();
+            sequence.start();
+
+            //同样的Component在reset之后的蒙版上摆放的位置
+            GuideMaskView expectedMask = new GuideMaskView.Builder(RuntimeEnvironment.application, rootView, targetView).build();
+            expectedMask.reset();
+            View expectedView = newComponentView();
+            expectedMask.addComponent(new GuideComponent(expectedView, expectedMask, direction, 10, 20));
+
+            assertEquals(direction.toString(), 200, attachedView.getWidth());
+            assertEquals(direction.toString(), expectedView.getLeft(), attachedView.getLeft());
+            assertEquals(direction.toString(), expectedView.getTop(), attachedView.getTop());
+            assertEquals(direction.toString(), expectedView.getBottom(), attachedView.getBottom());
+            sequence.skip();
+        }
+    }
+
+    private static View newComponentView() {
+        View view = new View(RuntimeEnvironment.application);
+        view.setLayoutParams(new ViewGroup.MarginLayoutParams(200, 100));
+        return view;
+    }
+}
@@ -0,0 +1,63 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.graphics.Region;
+
+/**
+ * 不做任何绘制的Canvas,只用来驱动onDraw
+ */
+class NoOpCanvas extends Canvas {
+    @Override
+    public int save() {
+        return 1;
+    }
+
+    @Override
+    public void restore() {
+    }
+
+    @Override
+    public int saveLayer(float left, float top, float right, float bottom, Paint paint, int saveFlags) {
+        return 1;
+    }
+
+    @Override
+    public int saveLayer(float left, float top, float right, float bottom, Paint paint) {
+        return 1;
+    }
+
+    @Override
+    public int saveLayer(RectF bounds, Paint paint) {
+        return 1;
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+    }
+
+    @Override
+    public boolean clipPath(Path path, Region.Op op) {
+        return true;
+    }
+
+    @Override
+    public boolean clipOutPath(Path path) {
+        return true;
+    }
+
+    @Override
+    public void drawColor(int color) {
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.pinssible.keyboardtest.guideviewtest.guide;
+
+import android.graphics.RectF;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 多层嵌套的View相对rootView的区域
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class TargetLocatorTest {
+    private FrameLayout rootView;
+    private FrameLayout outer;
+    private FrameLayout inner;
+    private View targetView;
+    private final TargetLocator locator = new TargetLocator();
+    private final RectF rect = new RectF();
+
+    @Before
+    public void setUp() {
+        rootView = new FrameLayout(RuntimeEnvironment.application);
+        outer = new FrameLayout(RuntimeEnvironment.application);
+        inner = new FrameLayout(RuntimeEnvironment.application);
+        targetView = new View(RuntimeEnvironment.application);
+        rootView.addView(outer);
+        outer.addView(inner);
+        inner.addView(targetView);
+        rootView.layout(0, 0, 1080, 1920);
+        outer.layout(10, 20, 1080, 1920);
+        inner.layout(30, 40, 1000, 1800);
+        targetView.layout(100, 200, 300, 400);
+    }
+
+    @Test
+    public void resolvesScrollAndTranslationOfEveryAncestor() {
+        rootView.scrollTo(0, 1000);
+        outer.scrollTo(0, 50);
+        inner.setTranslationX(5);
+        targetView.setTranslationY(7);
+        locator.locate(targetView, rootView, rect);
+        assertEquals(new RectF(145, 217, 345, 417), rect);
+    }
+
+    @Test
+    public void positionIsReadLiveWithoutInvalidation() {
+        locator.locate(targetView, rootView, rect);
+        assertEquals(new RectF(140, 260, 340, 460), rect);
+
+        //滚动不需要重新查找
+        outer.scrollTo(0, 60);
+        locator.locate(targetView, rootView, rect);
+        assertEquals(200, rect.top, 0);
+
+        inner.layout(30, 140, 1000, 1900);
+        locator.locate(targetView, rootView, rect);
+        assertEquals(300, rect.top, 0);
+
+        //列表滚动时只移动子View,不会触发布局
+        targetView.offsetTopAndBottom(-50);
+        locator.locate(targetView, rootView, rect);
+        assertEquals(250, rect.top, 0);
+    }
+}